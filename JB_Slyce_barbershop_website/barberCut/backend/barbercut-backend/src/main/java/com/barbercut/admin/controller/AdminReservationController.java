@@ -1,12 +1,18 @@
 package com.barbercut.admin.controller;
 
 import com.barbercut.admin.dto.AdminReservationView;
+import com.barbercut.admin.service.AdminReservationExportService;
 import com.barbercut.admin.service.AdminReservationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,16 +25,81 @@ public class AdminReservationController {
     @Autowired
     private AdminReservationService service;
 
+    @Autowired
+    private AdminReservationExportService exportService;
+
     @GetMapping
     public ResponseEntity<List<AdminReservationView>> list(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) String dateFrom,
-            @RequestParam(required = false) String dateTo) {
-        List<AdminReservationView> reservations = service.findAll(status, sortBy, dateFrom, dateTo);
+            @RequestParam(required = false) String dateTo,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        List<AdminReservationView> reservations = service.findAll(status, sortBy, dateFrom, dateTo, page, size);
         return new ResponseEntity<>(reservations, HttpStatus.OK);
     }
 
+    /**
+     * Streams every matching reservation and archived reservation as NDJSON (default) or CSV,
+     * gzip-compressed when the client accepts it. Reservations archived while the export runs are
+     * not missed, but one closed and archived mid-export can appear twice, once per status.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String dateFrom,
+            @RequestParam(required = false) String dateTo,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        AdminReservationExportService.Format fmt;
+        try {
+            fmt = AdminReservationExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid format: " + format + ". Use ndjson or csv");
+        }
+        Criteria criteria = service.filter(status, dateFrom, dateTo);
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new java.util.zip.GZIPOutputStream(out, 64 * 1024, true) : out;
+            exportService.export(criteria, fmt, target);
+            if (gzip) ((java.util.zip.GZIPOutputStream) target).finish();
+        };
+        ResponseEntity.BodyBuilder res = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, fmt.contentType + ";charset=UTF-8")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reservations." + fmt.extension + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) res.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return res.body(body);
+    }
+
+    // Honours q-values: "gzip;q=0" refuses gzip, and "*" covers gzip when it is not listed
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        Double gzipQ = null;
+        Double anyQ = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase();
+            double q = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String p = params[i].trim();
+                if (p.startsWith("q=") || p.startsWith("Q=")) {
+                    try {
+                        q = Double.parseDouble(p.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) gzipQ = q;
+            else if (coding.equals("*")) anyQ = q;
+        }
+        if (gzipQ != null) return gzipQ > 0;
+        return anyQ != null && anyQ > 0;
+    }
+
     @PutMapping("/{id}/cancel")
     public ResponseEntity<Map<String, Object>> cancel(@PathVariable String id) {
         AdminReservationView res = service.cancel(id);
@@ -0,0 +1,30 @@
+package com.barbercut.admin.controller;
+
+import com.barbercut.admin.dto.UserImportResult;
+import com.barbercut.admin.service.UserImportService;
+import com.barbercut.auth.dto.RegisterRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/users")
+@CrossOrigin(origins = "*")
+public class AdminUserImportController {
+
+    @Autowired
+    private UserImportService service;
+
+    /**
+     * Imports clients and barbers in one request. Rows that fail validation or hit an existing
+     * username or email are reported by index in the result; the rest are created.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<UserImportResult> importUsers(@RequestBody List<RegisterRequest> rows) {
+        UserImportResult result = service.importUsers(rows);
+        return new ResponseEntity<>(result, result.getCreated() > 0 ? HttpStatus.CREATED : HttpStatus.OK);
+    }
+}
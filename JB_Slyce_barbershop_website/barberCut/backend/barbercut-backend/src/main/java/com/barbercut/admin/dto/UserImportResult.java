@@ -0,0 +1,55 @@
+package com.barbercut.admin.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserImportResult {
+    private int requested;
+    private int created;
+    private int barbersCreated;
+    private List<RowError> errors = new ArrayList<>();
+
+    /** A row that was not imported; index is its position in the request. */
+    public static class RowError {
+        private int index;
+        private String username;
+        private String email;
+        private String reason;
+
+        public RowError() {}
+
+        public RowError(int index, String username, String email, String reason) {
+            this.index = index;
+            this.username = username;
+            this.email = email;
+            this.reason = reason;
+        }
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getEmail() { return email; }
+        public void setEmail(String email) { this.email = email; }
+
+        public String getReason() { return reason; }
+        public void setReason(String reason) { this.reason = reason; }
+    }
+
+    public UserImportResult() {}
+
+    // Getters and setters
+    public int getRequested() { return requested; }
+    public void setRequested(int requested) { this.requested = requested; }
+
+    public int getCreated() { return created; }
+    public void setCreated(int created) { this.created = created; }
+
+    public int getBarbersCreated() { return barbersCreated; }
+    public void setBarbersCreated(int barbersCreated) { this.barbersCreated = barbersCreated; }
+
+    public List<RowError> getErrors() { return errors; }
+    public void setErrors(List<RowError> errors) { this.errors = errors; }
+}
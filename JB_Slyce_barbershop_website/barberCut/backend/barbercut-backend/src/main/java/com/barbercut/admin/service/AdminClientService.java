@@ -4,6 +4,7 @@ import com.barbercut.admin.dto.AdminClientView;
 import com.barbercut.auth.model.User;
 import com.barbercut.auth.model.UserRole;
 import com.barbercut.auth.repository.UserRepository;
+import com.barbercut.auth.service.SessionTokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -19,6 +20,9 @@ public class AdminClientService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SessionTokenService sessionTokenService;
+
     public List<AdminClientView> findAll() {
         List<User> clients = userRepository.findByRole(UserRole.CLIENT);
         
@@ -37,7 +41,10 @@ public class AdminClientService {
         }
         
         user.setStatus("banned");
+        user.setStatusVersion(user.getStatusVersion() + 1);
         User updated = userRepository.save(user);
+        // Tokens issued before the ban stop verifying immediately
+        sessionTokenService.revoke(updated.getId(), updated.getStatusVersion());
         return toAdminView(updated);
     }
 
@@ -50,6 +57,7 @@ public class AdminClientService {
         }
         
         userRepository.deleteById(id);
+        sessionTokenService.revoke(id, Long.MAX_VALUE);
     }
 
     private AdminClientView toAdminView(User user) {
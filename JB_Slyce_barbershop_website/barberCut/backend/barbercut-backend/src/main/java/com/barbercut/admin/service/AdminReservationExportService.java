@@ -0,0 +1,184 @@
+package com.barbercut.admin.service;
+
+import com.barbercut.auth.model.User;
+import com.barbercut.auth.service.UserLookupService;
+import com.barbercut.reservation.model.Reservation;
+import com.barbercut.reservation.model.ReservationArchive;
+import com.barbercut.reservation.service.ReservationArchiver;
+import com.barbercut.user.service.BarberDirectory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Streams reservations and archived reservations straight from Mongo cursors to the response as
+ * NDJSON or CSV. Rows are handled in fixed-size chunks (names resolved with one batched lookup
+ * per chunk), so memory stays constant regardless of how many rows are exported.
+ *
+ * The archiver moves declined and cancelled reservations to reservation_archives while an export
+ * runs, inserting the archive copy before deleting the original. Active reservations are therefore
+ * streamed first and archives second, so a row moved mid-export is never missed, and archived rows
+ * whose id was already exported as a declined or cancelled reservation are skipped. A reservation
+ * that is closed and archived after its active row was written can still appear twice, once per
+ * status.
+ */
+@Service
+public class AdminReservationExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        public final String contentType;
+        public final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+    }
+
+    private static final int CHUNK_SIZE = 500;
+    private static final List<String> COLUMNS = List.of(
+            "source", "id", "clientId", "clientName", "barberId", "barberName", "slot", "status",
+            "serviceName", "serviceDurationMinutes", "notes", "archivedAt");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserLookupService userLookupService;
+
+    @Autowired
+    private BarberDirectory barberDirectory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public void export(Criteria criteria, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\n");
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "slot")).cursorBatchSize(CHUNK_SIZE);
+        // Only closed reservations get archived, so only their ids need remembering
+        Set<String> closedIds = new HashSet<>();
+        try (Stream<Reservation> active = mongoTemplate.stream(query, Reservation.class)) {
+            writeChunked(active.peek(r -> {
+                if (ReservationArchiver.TERMINAL_STATUSES.contains(r.getStatus())) closedIds.add(r.getId());
+            }).map(this::toRow).iterator(), format, writer);
+        }
+        try (Stream<ReservationArchive> archived = mongoTemplate.stream(query, ReservationArchive.class)) {
+            writeChunked(archived.filter(a -> !closedIds.contains(a.getOriginalReservationId())).map(this::toRow).iterator(), format, writer);
+        }
+        writer.flush();
+    }
+
+    private void writeChunked(Iterator<Map<String, Object>> rows, Format format, Writer writer) throws IOException {
+        List<Map<String, Object>> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == CHUNK_SIZE || !rows.hasNext()) {
+                resolveNames(chunk);
+                for (Map<String, Object> row : chunk) {
+                    if (format == Format.NDJSON) {
+                        writer.write(objectMapper.writeValueAsString(row));
+                    } else {
+                        writeCsvRow(row, writer);
+                    }
+                    writer.write("\n");
+                }
+                chunk.clear();
+                writer.flush();
+            }
+        }
+    }
+
+    private void resolveNames(List<Map<String, Object>> chunk) {
+        List<String> clientIds = new ArrayList<>();
+        List<String> barberIds = new ArrayList<>();
+        for (Map<String, Object> row : chunk) {
+            clientIds.add((String) row.get("clientId"));
+            barberIds.add((String) row.get("barberId"));
+        }
+        Map<String, User> clients = userLookupService.findByIds(clientIds);
+        Map<String, BarberDirectory.Entry> barbers = barberDirectory.findAll(barberIds);
+        for (Map<String, Object> row : chunk) {
+            User c = row.get("clientId") != null ? clients.get(row.get("clientId")) : null;
+            BarberDirectory.Entry b = row.get("barberId") != null ? barbers.get(row.get("barberId")) : null;
+            row.put("clientName", c != null ? c.getUsername() : null);
+            row.put("barberName", b != null ? b.username : null);
+        }
+    }
+
+    private Map<String, Object> toRow(Reservation r) {
+        Map<String, Object> row = newRow("reservation", r.getId(), r.getClientId(), r.getBarberId());
+        row.put("slot", r.getSlot());
+        row.put("status", r.getStatus());
+        row.put("serviceName", r.getServiceName());
+        row.put("serviceDurationMinutes", r.getServiceDurationMinutes());
+        row.put("notes", r.getNotes());
+        row.put("archivedAt", null);
+        return row;
+    }
+
+    private Map<String, Object> toRow(ReservationArchive a) {
+        Map<String, Object> row = newRow("archive", a.getId(), a.getClientId(), a.getBarberId());
+        row.put("slot", a.getSlot());
+        row.put("status", a.getStatus());
+        row.put("serviceName", a.getServiceName());
+        row.put("serviceDurationMinutes", a.getServiceDurationMinutes());
+        row.put("notes", a.getNotes());
+        row.put("archivedAt", a.getArchivedAt());
+        return row;
+    }
+
+    private Map<String, Object> newRow(String source, String id, String clientId, String barberId) {
+        // Keep column order stable for both formats
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("source", source);
+        row.put("id", id);
+        row.put("clientId", clientId);
+        row.put("clientName", null);
+        row.put("barberId", barberId);
+        row.put("barberName", null);
+        return row;
+    }
+
+    private void writeCsvRow(Map<String, Object> row, Writer writer) throws IOException {
+        boolean first = true;
+        for (String col : COLUMNS) {
+            if (!first) writer.write(",");
+            first = false;
+            Object value = row.get(col);
+            if (value != null) writer.write(csvEscape(value.toString()));
+        }
+    }
+
+    private String csvEscape(String s) {
+        // Client-supplied text (notes, usernames) must not be read as a formula by spreadsheet apps
+        if (!s.isEmpty() && "=+-@\t\r".indexOf(s.charAt(0)) >= 0) s = "'" + s;
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) return s;
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+}
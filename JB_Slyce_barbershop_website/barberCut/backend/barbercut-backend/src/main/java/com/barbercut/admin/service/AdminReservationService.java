@@ -2,20 +2,38 @@ package com.barbercut.admin.service;
 
 import com.barbercut.admin.dto.AdminReservationView;
 import com.barbercut.auth.model.User;
-import com.barbercut.auth.repository.UserRepository;
+import com.barbercut.auth.service.UserLookupService;
 import com.barbercut.reservation.model.Reservation;
 import com.barbercut.reservation.model.ReservationStatus;
 import com.barbercut.reservation.repository.ReservationRepository;
+import com.barbercut.reservation.service.ReservationArchiver;
+import com.barbercut.reservation.service.SlotAvailabilityIndex;
+import com.barbercut.reservation.service.SlotClaimService;
+import com.barbercut.user.service.BarberDirectory;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Comparator;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
 @Service
 public class AdminReservationService {
@@ -24,85 +42,160 @@ public class AdminReservationService {
     private ReservationRepository reservationRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserLookupService userLookupService;
+
+    @Autowired
+    private SlotAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private SlotClaimService slotClaimService;
+
+    @Autowired
+    private BarberDirectory barberDirectory;
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * Lists reservations for the admin console. Filtering, sorting, paging and the client/barber
+     * name joins all run server-side in one aggregation; page and size are optional and the whole
+     * filtered list is returned when size is omitted.
+     */
+    public List<AdminReservationView> findAll(String statusFilter, String sortBy, String dateFrom, String dateTo,
+                                              Integer page, Integer size) {
+        Criteria criteria = filter(statusFilter, dateFrom, dateTo);
+
+        // Default sort by date descending; status sorts ties by date
+        Sort sort = "status".equalsIgnoreCase(sortBy)
+                ? Sort.by(Sort.Direction.ASC, "status").and(Sort.by(Sort.Direction.DESC, "slot"))
+                : Sort.by(Sort.Direction.DESC, "slot");
+
+        List<AggregationOperation> ops = new ArrayList<>();
+        ops.add(Aggregation.match(criteria));
+        ops.add(Aggregation.sort(sort));
+        if (size != null) {
+            if (size <= 0 || (page != null && page < 0)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page or size");
+            }
+            int limit = Math.min(size, MAX_PAGE_SIZE);
+            long skip = (long) (page != null ? page : 0) * limit;
+            if (skip > 0) ops.add(Aggregation.skip(skip));
+            ops.add(Aggregation.limit(limit));
+        }
+        // Joins run on the page only. Client ids reference users._id; barber ids reference users.barberId.
+        ops.add(ctx -> new Document("$addFields", new Document("clientOid",
+                new Document("$convert", new Document("input", "$clientId").append("to", "objectId")
+                        .append("onError", null).append("onNull", null)))));
+        ops.add(ctx -> new Document("$lookup", new Document("from", "users")
+                .append("localField", "clientOid").append("foreignField", "_id").append("as", "clientUser")));
+        ops.add(ctx -> new Document("$lookup", new Document("from", "users")
+                .append("localField", "barberId").append("foreignField", "barberId").append("as", "barberUser")));
+        ops.add(ctx -> new Document("$addFields", new Document()
+                .append("clientName", new Document("$arrayElemAt", List.of("$clientUser.username", 0)))
+                .append("barberName", new Document("$arrayElemAt", List.of("$barberUser.username", 0)))));
+        ops.add(ctx -> new Document("$project", new Document("clientOid", 0).append("clientUser", 0).append("barberUser", 0)));
+
+        TypedAggregation<Reservation> aggregation = Aggregation.newAggregation(Reservation.class, ops)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        List<AdminReservationView> views = new ArrayList<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, Document.class).getMappedResults()) {
+            Reservation r = mongoTemplate.getConverter().read(Reservation.class, row);
+            views.add(new AdminReservationView(
+                    r.getId(),
+                    r.getClientId(),
+                    displayName(row.getString("clientName")),
+                    r.getBarberId(),
+                    displayName(row.getString("barberName")),
+                    r.getSlot(),
+                    r.getStatus(),
+                    r.getNotes(),
+                    r.getServiceName(),
+                    r.getServiceDurationMinutes()
+            ));
+        }
+        return views;
+    }
+
+    /**
+     * Status and slot-date criteria shared by the listing and the export; valid for both
+     * reservations and reservation_archives.
+     */
+    public Criteria filter(String statusFilter, String dateFrom, String dateTo) {
+        Criteria criteria = new Criteria();
 
-    public List<AdminReservationView> findAll(String statusFilter, String sortBy, String dateFrom, String dateTo) {
-        List<Reservation> reservations;
-        
         // Filter by status if provided
         if (statusFilter != null && !statusFilter.isEmpty()) {
             try {
                 ReservationStatus status = ReservationStatus.valueOf(statusFilter.toUpperCase());
-                reservations = reservationRepository.findByStatus(status);
+                criteria = criteria.and("status").is(status);
             } catch (IllegalArgumentException e) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid status: " + statusFilter);
             }
-        } else {
-            reservations = reservationRepository.findAll();
         }
 
         // Apply date range filter if provided
+        Instant fromInstant = null;
+        Instant toInstant = null;
         if (dateFrom != null && !dateFrom.isEmpty()) {
             try {
-                java.time.Instant fromInstant = java.time.LocalDate.parse(dateFrom).atStartOfDay(java.time.ZoneId.systemDefault()).toInstant();
-                reservations = reservations.stream()
-                        .filter(r -> r.getSlot() != null && !r.getSlot().isBefore(fromInstant))
-                        .collect(Collectors.toList());
+                fromInstant = LocalDate.parse(dateFrom).atStartOfDay(ZoneId.systemDefault()).toInstant();
             } catch (Exception e) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid dateFrom format. Use YYYY-MM-DD");
             }
         }
-        
         if (dateTo != null && !dateTo.isEmpty()) {
             try {
-                java.time.Instant toInstant = java.time.LocalDate.parse(dateTo).atTime(23, 59, 59).atZone(java.time.ZoneId.systemDefault()).toInstant();
-                reservations = reservations.stream()
-                        .filter(r -> r.getSlot() != null && !r.getSlot().isAfter(toInstant))
-                        .collect(Collectors.toList());
+                toInstant = LocalDate.parse(dateTo).atTime(23, 59, 59).atZone(ZoneId.systemDefault()).toInstant();
             } catch (Exception e) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid dateTo format. Use YYYY-MM-DD");
             }
         }
-
-        // Convert to view DTOs with client and barber names
-        List<AdminReservationView> views = reservations.stream()
-                .map(this::toAdminView)
-                .collect(Collectors.toList());
-
-        // Sort if requested
-        if (sortBy != null && !sortBy.isEmpty()) {
-            if ("date".equalsIgnoreCase(sortBy)) {
-                views.sort(Comparator.comparing(AdminReservationView::getSlot).reversed());
-            } else if ("status".equalsIgnoreCase(sortBy)) {
-                views.sort(Comparator.comparing(v -> v.getStatus().name()));
-            }
-        } else {
-            // Default sort by date descending
-            views.sort(Comparator.comparing(AdminReservationView::getSlot).reversed());
+        if (fromInstant != null && toInstant != null) {
+            criteria = criteria.and("slot").gte(fromInstant).lte(toInstant);
+        } else if (fromInstant != null) {
+            criteria = criteria.and("slot").gte(fromInstant);
+        } else if (toInstant != null) {
+            criteria = criteria.and("slot").lte(toInstant);
         }
-
-        return views;
+        return criteria;
     }
 
     public AdminReservationView cancel(String id) {
-        Reservation res = reservationRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Reservation not found"));
-        
-        res.setStatus(ReservationStatus.CANCELLED);
-        Reservation updated = reservationRepository.save(res);
-        return toAdminView(updated);
+        // Conditional update, like updateReservationStatus: never overwrite a closed or completed reservation
+        List<ReservationStatus> closed = new ArrayList<>(ReservationArchiver.TERMINAL_STATUSES);
+        closed.add(ReservationStatus.COMPLETED);
+        Reservation updated = mongoTemplate.findAndModify(
+                query(where("id").is(id).and("status").nin(closed)),
+                Update.update("status", ReservationStatus.CANCELLED),
+                FindAndModifyOptions.options().returnNew(true),
+                Reservation.class);
+        if (updated == null) {
+            if (!reservationRepository.existsById(id)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reservation not found");
+            }
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Reservation is already closed and cannot be cancelled");
+        }
+        slotClaimService.release(updated.getBarberId(), updated.getSlot(), updated.getId());
+        availabilityIndex.onReservationSaved(updated);
+        return toAdminView(updated, userLookupService.findByIds(List.of(updated.getClientId())));
     }
 
     public void delete(String id) {
-        if (!reservationRepository.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reservation not found");
-        }
+        Reservation res = reservationRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Reservation not found"));
         reservationRepository.deleteById(id);
+        slotClaimService.release(res.getBarberId(), res.getSlot(), res.getId());
+        availabilityIndex.onReservationRemoved(res);
     }
 
-    private AdminReservationView toAdminView(Reservation res) {
-        String clientName = getUserName(res.getClientId());
-        String barberName = getUserName(res.getBarberId());
+    private AdminReservationView toAdminView(Reservation res, Map<String, User> users) {
+        String clientName = getUserName(res.getClientId(), users);
+        // Barber ids are users.barberId, not user ids
+        BarberDirectory.Entry barber = res.getBarberId() != null ? barberDirectory.find(res.getBarberId()) : null;
+        String barberName = displayName(barber != null ? barber.username : null);
         
         return new AdminReservationView(
                 res.getId(),
@@ -118,14 +211,14 @@ public class AdminReservationService {
         );
     }
 
-    private String getUserName(String userId) {
+    private String getUserName(String userId, Map<String, User> users) {
         if (userId == null) return "Unknown";
-        Optional<User> userOpt = userRepository.findById(userId);
-        if (userOpt.isPresent()) {
-            User u = userOpt.get();
-            return u.getUsername() != null ? capitalize(u.getUsername()) : "Unknown";
-        }
-        return "Unknown";
+        User u = users.get(userId);
+        return displayName(u != null ? u.getUsername() : null);
+    }
+
+    private String displayName(String username) {
+        return username != null ? capitalize(username) : "Unknown";
     }
 
     private String capitalize(String s) {
@@ -2,6 +2,7 @@ package com.barbercut.admin.service;
 
 import com.barbercut.admin.model.Barber;
 import com.barbercut.admin.repository.BarberRepository;
+import com.barbercut.user.service.BarberDirectory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,9 @@ public class BarberAdminService {
     @Autowired
     private BarberRepository barberRepository;
 
+    @Autowired
+    private BarberDirectory barberDirectory;
+
     public List<Barber> findAll() {
         return barberRepository.findAll();
     }
@@ -23,18 +27,23 @@ public class BarberAdminService {
         Barber b = barberRepository.findById(id).orElse(null);
         if (b == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Barber not found");
         b.setStatus("approved");
-        return barberRepository.save(b);
+        Barber saved = barberRepository.save(b);
+        barberDirectory.invalidate(id);
+        return saved;
     }
 
     public Barber reject(String id) {
         Barber b = barberRepository.findById(id).orElse(null);
         if (b == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Barber not found");
         b.setStatus("rejected");
-        return barberRepository.save(b);
+        Barber saved = barberRepository.save(b);
+        barberDirectory.invalidate(id);
+        return saved;
     }
 
     public void delete(String id) {
         if (!barberRepository.existsById(id)) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Barber not found");
         barberRepository.deleteById(id);
+        barberDirectory.invalidate(id);
     }
 }
@@ -0,0 +1,230 @@
+package com.barbercut.admin.service;
+
+import com.barbercut.admin.dto.UserImportResult;
+import com.barbercut.admin.model.Barber;
+import com.barbercut.auth.dto.RegisterRequest;
+import com.barbercut.auth.model.User;
+import com.barbercut.auth.model.UserRole;
+import com.barbercut.auth.service.PasswordHasher;
+import com.barbercut.notification.service.NotificationService;
+import com.barbercut.user.service.BarberDirectory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk import of clients and barbers, e.g. when onboarding a franchise.
+ *
+ * Rows are validated up front, passwords are hashed in parallel on a dedicated fork-join pool sized
+ * to the cores, and users go in with one unordered insertMany. Username and email conflicts are not
+ * pre-checked: the unique indexes reject those rows and the bulk write errors are mapped back to
+ * row indexes while the other rows are kept. Barber records for imported BARBER rows are created
+ * pending in a second unordered insert, leaving any existing record untouched.
+ */
+@Service
+public class UserImportService {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private PasswordHasher passwordHasher;
+    @Autowired
+    private BarberDirectory barberDirectory;
+    @Autowired
+    private NotificationService notificationService;
+
+    @Value("${barbercut.import.max-rows:10000}")
+    private int maxRows;
+    @Value("${barbercut.import.hash-parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool hashPool;
+
+    @PostConstruct
+    public void start() {
+        hashPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void stop() {
+        hashPool.shutdownNow();
+    }
+
+    public UserImportResult importUsers(List<RegisterRequest> rows) {
+        if (rows == null || rows.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No users to import");
+        }
+        if (rows.size() > maxRows) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxRows + " users per import");
+        }
+        UserImportResult result = new UserImportResult();
+        result.setRequested(rows.size());
+
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            String reason = validate(rows.get(i));
+            if (reason != null) result.getErrors().add(rowError(i, rows.get(i), reason));
+            else valid.add(i);
+        }
+        if (valid.isEmpty()) return result;
+
+        List<User> users = hash(rows, valid);
+
+        // Index in users -> reason; rows the unique indexes turned away
+        Map<Integer, String> rejected = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class).insert(users).execute();
+        } catch (BulkOperationException e) {
+            collect(e.getErrors(), rejected);
+        } catch (DuplicateKeyException e) {
+            // Translated from the bulk write when every error was a duplicate key
+            if (e.getCause() instanceof MongoBulkWriteException bulk) {
+                collect(bulk.getWriteErrors(), rejected);
+            } else {
+                throw e;
+            }
+        }
+
+        Map<String, Barber> barbers = new LinkedHashMap<>();
+        int created = 0;
+        for (int k = 0; k < users.size(); k++) {
+            String reason = rejected.get(k);
+            if (reason != null) {
+                result.getErrors().add(rowError(valid.get(k), rows.get(valid.get(k)), reason));
+                continue;
+            }
+            created++;
+            User u = users.get(k);
+            if (u.getRole() == UserRole.BARBER && u.getBarberId() != null) {
+                barbers.putIfAbsent(u.getBarberId(), new Barber(u.getBarberId(), capitalize(u.getUsername()),
+                        u.getEmail(), null, u.getAvatarUrl(), u.getBio(), "pending"));
+            }
+        }
+        result.setCreated(created);
+        result.setBarbersCreated(insertBarbers(new ArrayList<>(barbers.values())));
+        result.getErrors().sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+
+        if (created > 0) {
+            try {
+                Map<String, Object> meta = new HashMap<>();
+                meta.put("created", created);
+                meta.put("barbersCreated", result.getBarbersCreated());
+                meta.put("failed", result.getErrors().size());
+                notificationService.publish(
+                        "USERS_IMPORTED",
+                        "Users imported",
+                        created + " users imported" + (result.getErrors().isEmpty() ? "." : ", " + result.getErrors().size() + " rows rejected."),
+                        null,
+                        null,
+                        meta
+                );
+            } catch (Exception ignored) {}
+        }
+        return result;
+    }
+
+    private String validate(RegisterRequest r) {
+        if (r == null) return "Empty row";
+        if (isBlank(r.getUsername())) return "Username is required";
+        if (isBlank(r.getEmail())) return "Email is required";
+        if (isBlank(r.getPassword())) return "Password is required";
+        if (r.getRole() == UserRole.ADMIN) return "Admin accounts cannot be imported";
+        return null;
+    }
+
+    // BCrypt dominates an import, so spread it over the cores; parallel streams run on the pool they are submitted from
+    private List<User> hash(List<RegisterRequest> rows, List<Integer> valid) {
+        try {
+            return hashPool.submit(() -> IntStream.range(0, valid.size()).parallel()
+                    .mapToObj(k -> toUser(rows.get(valid.get(k))))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Import interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private User toUser(RegisterRequest r) {
+        UserRole role = r.getRole() != null ? r.getRole() : UserRole.CLIENT;
+        User user = new User(
+                r.getEmail().trim(),
+                r.getUsername().trim(),
+                passwordHasher.encodeOnCaller(r.getPassword()),
+                role,
+                role == UserRole.BARBER ? (!isBlank(r.getBarberId()) ? r.getBarberId().trim() : r.getUsername().trim()) : null
+        );
+        // Assigned here so bulk write errors can be matched to rows by index
+        user.setId(new ObjectId().toHexString());
+        return user;
+    }
+
+    private int insertBarbers(List<Barber> barbers) {
+        if (barbers.isEmpty()) return 0;
+        Map<Integer, String> rejected = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Barber.class).insert(barbers).execute();
+        } catch (BulkOperationException e) {
+            collect(e.getErrors(), rejected);
+        } catch (DuplicateKeyException e) {
+            // An existing Barber record is kept as is, like register does
+            if (e.getCause() instanceof MongoBulkWriteException bulk) {
+                collect(bulk.getWriteErrors(), rejected);
+            } else {
+                throw e;
+            }
+        }
+        for (Barber b : barbers) barberDirectory.invalidate(b.getId());
+        return barbers.size() - rejected.size();
+    }
+
+    private void collect(List<BulkWriteError> errors, Map<Integer, String> rejected) {
+        for (BulkWriteError error : errors) {
+            rejected.put(error.getIndex(), reason(error));
+        }
+    }
+
+    private String reason(BulkWriteError error) {
+        if (error.getCode() != DUPLICATE_KEY) return error.getMessage();
+        String message = error.getMessage();
+        if (message.contains("email")) return "Email already registered";
+        if (message.contains("username")) return "Username already taken";
+        return "Duplicate user";
+    }
+
+    private UserImportResult.RowError rowError(int index, RegisterRequest r, String reason) {
+        return new UserImportResult.RowError(index, r != null ? r.getUsername() : null, r != null ? r.getEmail() : null, reason);
+    }
+
+    private boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    private String capitalize(String s) {
+        if (s == null || s.isEmpty()) return s;
+        return s.substring(0, 1).toUpperCase() + s.substring(1);
+    }
+}
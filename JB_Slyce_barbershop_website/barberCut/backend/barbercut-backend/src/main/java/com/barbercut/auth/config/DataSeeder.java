@@ -5,19 +5,17 @@ import com.barbercut.admin.repository.BarberRepository;
 import com.barbercut.auth.model.User;
 import com.barbercut.auth.model.UserRole;
 import com.barbercut.auth.repository.UserRepository;
+import com.barbercut.auth.service.PasswordHasher;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 @Configuration
 public class DataSeeder {
 
     @Bean
-    public CommandLineRunner seedUsers(UserRepository userRepository) {
+    public CommandLineRunner seedUsers(UserRepository userRepository, PasswordHasher enc) {
         return args -> {
-            BCryptPasswordEncoder enc = new BCryptPasswordEncoder();
-
             if (!userRepository.existsByUsername("admin")) {
                 User u = new User("admin@local", "admin", enc.encode("admin123"), UserRole.ADMIN, null);
                 userRepository.save(u);
@@ -0,0 +1,54 @@
+package com.barbercut.auth.config;
+
+import com.barbercut.auth.service.SessionTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Authenticates requests carrying "Authorization: Bearer &lt;session token&gt;".
+ *
+ * Tokens are advisory while every route is permitAll: requests without a valid bearer token,
+ * including forged, expired, revoked or signed with a previous process's key, pass through
+ * anonymously rather than failing requests that worked before tokens existed.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final SessionTokenService tokens;
+
+    public TokenAuthenticationFilter(SessionTokenService tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        SessionTokenService.Claims claims = tokens.verify(header.substring(BEARER.length()).trim());
+        if (claims == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        List<SimpleGrantedAuthority> authorities = claims.role != null
+                ? List.of(new SimpleGrantedAuthority("ROLE_" + claims.role.name()))
+                : List.of();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(claims, null, authorities));
+        chain.doFilter(request, response);
+    }
+}
@@ -4,7 +4,9 @@ import com.barbercut.auth.dto.AuthResponse;
 import com.barbercut.auth.dto.LoginRequest;
 import com.barbercut.auth.dto.RegisterRequest;
 import com.barbercut.auth.service.AuthService;
+import com.barbercut.auth.service.HashingBusyException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +24,8 @@ public class AuthController {
         try {
             AuthResponse response = authService.register(request);
             return new ResponseEntity<>(response, HttpStatus.CREATED);
+        } catch (HashingBusyException e) {
+            return busy(e);
         } catch (RuntimeException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -32,8 +36,17 @@ public class AuthController {
         try {
             AuthResponse response = authService.login(request);
             return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (HashingBusyException e) {
+            return busy(e);
         } catch (RuntimeException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.UNAUTHORIZED);
         }
     }
-}
\ No newline at end of file
+
+    // Password hashing is saturated: ask the client to back off briefly instead of queueing
+    private ResponseEntity<?> busy(HashingBusyException e) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return new ResponseEntity<>(e.getMessage(), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
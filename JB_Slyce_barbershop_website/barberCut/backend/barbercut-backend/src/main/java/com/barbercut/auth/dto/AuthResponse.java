@@ -2,6 +2,8 @@ package com.barbercut.auth.dto;
 
 import com.barbercut.auth.model.UserRole;
 
+import java.time.Instant;
+
 public class AuthResponse {
     private String id;
     private String email;
@@ -10,6 +12,7 @@ public class AuthResponse {
     private String barberId;
     private String message;
     private String token;
+    private Instant tokenExpiresAt;
 
     public AuthResponse() {
     }
@@ -78,4 +81,12 @@ public class AuthResponse {
     public void setToken(String token) {
         this.token = token;
     }
+
+    public Instant getTokenExpiresAt() {
+        return tokenExpiresAt;
+    }
+
+    public void setTokenExpiresAt(Instant tokenExpiresAt) {
+        this.tokenExpiresAt = tokenExpiresAt;
+    }
 }
\ No newline at end of file
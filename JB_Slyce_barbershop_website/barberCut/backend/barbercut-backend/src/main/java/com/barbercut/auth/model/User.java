@@ -22,6 +22,7 @@ public class User {
 
     private UserRole role;
 
+    @Indexed(sparse = true)
     private String barberId; // Only for BARBER role
 
     private String bio; // Barber bio/tagline
@@ -30,6 +31,8 @@ public class User {
 
     private String status; // User status: "active", "banned", etc.
 
+    private long statusVersion; // Bumped on every status change; session tokens carry the version they were issued at
+
     private Instant createdAt;
 
     public User() {
@@ -119,6 +122,14 @@ public class User {
         this.status = status;
     }
 
+    public long getStatusVersion() {
+        return statusVersion;
+    }
+
+    public void setStatusVersion(long statusVersion) {
+        this.statusVersion = statusVersion;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -4,6 +4,7 @@ import com.barbercut.auth.model.User;
 import com.barbercut.auth.model.UserRole;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +14,5 @@ public interface UserRepository extends MongoRepository<User, String> {
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
     List<User> findByRole(UserRole role);
+    List<User> findByBarberIdIn(Collection<String> barberIds);
 }
\ No newline at end of file
@@ -9,12 +9,17 @@ import com.barbercut.auth.model.User;
 import com.barbercut.auth.model.UserRole;
 import com.barbercut.auth.repository.UserRepository;
 import com.barbercut.notification.service.NotificationService;
+import com.barbercut.user.service.BarberDirectory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
 @Service
 public class AuthService {
 
@@ -27,7 +32,17 @@ public class AuthService {
     @Autowired
     private NotificationService notificationService;
 
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private BarberDirectory barberDirectory;
+
+    @Autowired
+    private PasswordHasher passwordEncoder;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SessionTokenService sessionTokenService;
 
     public AuthResponse register(RegisterRequest request) {
         // Validate
@@ -55,6 +70,8 @@ public class AuthService {
         );
 
         user = userRepository.save(user);
+        // A cached "unknown barber" entry may exist for this barberId
+        barberDirectory.invalidate(user.getBarberId());
 
         // If role is BARBER, ensure a corresponding Barber record exists with pending status
         if (user.getRole() == UserRole.BARBER && user.getBarberId() != null) {
@@ -121,9 +138,22 @@ public class AuthService {
             }
         }
 
+        // Only for logins that succeed: upgrade hashes made with an older work factor,
+        // and only if the stored hash is still the one we verified
+        if (passwordEncoder.needsRehash(user.getPasswordHash())) {
+            String userId = user.getId();
+            String oldHash = user.getPasswordHash();
+            passwordEncoder.rehashAsync(request.getPassword(), newHash -> mongoTemplate.updateFirst(
+                    query(where("id").is(userId).and("passwordHash").is(oldHash)),
+                    Update.update("passwordHash", newHash),
+                    User.class));
+        }
+
         AuthResponse out = new AuthResponse(user.getId(), user.getEmail(), user.getUsername(), user.getRole(), user.getBarberId());
         out.setMessage("Login successful");
-        out.setToken("mock-" + user.getUsername());
+        SessionTokenService.IssuedToken token = sessionTokenService.issue(user);
+        out.setToken(token.token);
+        out.setTokenExpiresAt(token.expiresAt);
         return out;
     }
 
@@ -0,0 +1,10 @@
+package com.barbercut.auth.service;
+
+/**
+ * Thrown when the password hashing executor is saturated and a request cannot be served in time.
+ */
+public class HashingBusyException extends RuntimeException {
+    public HashingBusyException(String message) {
+        super(message);
+    }
+}
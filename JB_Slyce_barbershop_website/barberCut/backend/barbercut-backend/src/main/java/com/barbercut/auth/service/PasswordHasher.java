@@ -0,0 +1,141 @@
+package com.barbercut.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs BCrypt on a dedicated, bounded pool so login spikes cannot take CPU away from request threads.
+ *
+ * The pool has one thread per core (hash-threads) and a short queue (hash-queue). A task that does
+ * not fit in the queue, or is not finished within hash-timeout-ms, fails fast with
+ * {@link HashingBusyException}. Hashes whose cost differs from bcrypt-strength report
+ * {@link #needsRehash} so callers can upgrade them after a successful login.
+ */
+@Component
+public class PasswordHasher {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${barbercut.auth.bcrypt-strength:10}")
+    private int strength;
+    @Value("${barbercut.auth.hash-threads:0}")
+    private int threads;
+    @Value("${barbercut.auth.hash-queue:64}")
+    private int queueCapacity;
+    @Value("${barbercut.auth.hash-timeout-ms:2000}")
+    private long timeoutMs;
+
+    private BCryptPasswordEncoder encoder;
+    private ThreadPoolExecutor pool;
+    private Timer hashTime;
+    private Counter rejected;
+
+    @PostConstruct
+    public void start() {
+        encoder = new BCryptPasswordEncoder(strength);
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger n = new AtomicInteger();
+        pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "password-hasher-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("auth.hash.queue.depth", pool, p -> p.getQueue().size())
+                .description("Password hashes waiting for a hashing thread").register(meterRegistry);
+        hashTime = Timer.builder("auth.hash.duration")
+                .description("Time spent in BCrypt per hash or verification").publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        rejected = Counter.builder("auth.hash.rejected")
+                .description("Hashing requests refused because the pool was saturated").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    public String encode(CharSequence raw) {
+        return run(() -> encoder.encode(raw));
+    }
+
+    /**
+     * Hashes on the calling thread with the configured work factor, for batch jobs that run on their
+     * own executor instead of the login pool.
+     */
+    public String encodeOnCaller(CharSequence raw) {
+        return hashTime.record(() -> encoder.encode(raw));
+    }
+
+    public boolean matches(CharSequence raw, String hash) {
+        if (hash == null || hash.isEmpty()) return false;
+        return run(() -> encoder.matches(raw, hash));
+    }
+
+    /** True when the stored hash was made with a different work factor than the configured one. */
+    public boolean needsRehash(String hash) {
+        if (hash == null) return false;
+        Matcher m = BCRYPT_COST.matcher(hash);
+        return m.find() && Integer.parseInt(m.group(1)) != strength;
+    }
+
+    /**
+     * Re-encodes a password in the background and hands the new hash to the callback. Best effort:
+     * nothing happens if the pool is saturated, and the next login tries again.
+     */
+    public void rehashAsync(CharSequence raw, Consumer<String> callback) {
+        try {
+            pool.execute(() -> callback.accept(hashTime.record(() -> encoder.encode(raw))));
+        } catch (RejectedExecutionException ignored) {}
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = pool.submit(() -> hashTime.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new HashingBusyException("Too many sign-in attempts right now. Please try again shortly.");
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new HashingBusyException("Too many sign-in attempts right now. Please try again shortly.");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new HashingBusyException("Interrupted while hashing");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.barbercut.auth.service;
+
+import com.barbercut.auth.model.User;
+import com.barbercut.auth.model.UserRole;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Issues and verifies stateless session tokens.
+ *
+ * A token is base64url(payload) + "." + base64url(HMAC-SHA256(payload)) where the payload carries
+ * the user id, role, barberId, status version and expiry. Verification is a MAC check plus one map
+ * lookup, with no database access. Tokens issued before a ban are refused through a small in-memory
+ * revocation set holding the minimum accepted status version per user; entries are only needed
+ * until every token issued before them has expired. The set is local to this instance, so checks
+ * that must hold across instances (such as the banned status) still read the user document.
+ */
+@Service
+public class SessionTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTokenService.class);
+    private static final String VERSION = "v1";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${barbercut.auth.token-secret:}")
+    private String secret;
+    @Value("${barbercut.auth.token-ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private SecretKeySpec key;
+    private ThreadLocal<Mac> macs;
+
+    private static class Revocation {
+        final long minVersion;
+        final Instant until;
+
+        Revocation(long minVersion, Instant until) {
+            this.minVersion = minVersion;
+            this.until = until;
+        }
+    }
+
+    private final Map<String, Revocation> revoked = new ConcurrentHashMap<>();
+
+    /** What a verified token says about its holder. */
+    public static class Claims {
+        public final String userId;
+        public final UserRole role;
+        public final String barberId;
+        public final long statusVersion;
+        public final Instant expiresAt;
+
+        Claims(String userId, UserRole role, String barberId, long statusVersion, Instant expiresAt) {
+            this.userId = userId;
+            this.role = role;
+            this.barberId = barberId;
+            this.statusVersion = statusVersion;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public static class IssuedToken {
+        public final String token;
+        public final Instant expiresAt;
+
+        IssuedToken(String token, Instant expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            // Tokens then only survive until restart and are not shared between instances
+            log.warn("barbercut.auth.token-secret is not set; using a random per-process key");
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        key = new SecretKeySpec(keyBytes, ALGORITHM);
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /** Banned users stay locked out across restarts until their old tokens have expired. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevocations() {
+        Query q = new Query(where("status").is("banned"));
+        q.fields().include("id", "statusVersion");
+        for (User u : mongoTemplate.find(q, User.class)) {
+            revoke(u.getId(), u.getStatusVersion());
+        }
+    }
+
+    public IssuedToken issue(User user) {
+        Instant expiresAt = Instant.now().plus(Duration.ofMinutes(ttlMinutes)).truncatedTo(ChronoUnit.SECONDS);
+        String payload = String.join("|", VERSION,
+                user.getId(),
+                user.getRole() != null ? user.getRole().name() : "",
+                user.getBarberId() != null ? user.getBarberId() : "",
+                Long.toString(user.getStatusVersion()),
+                Long.toString(expiresAt.getEpochSecond()));
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        return new IssuedToken(b64.encodeToString(body) + "." + b64.encodeToString(sign(body)), expiresAt);
+    }
+
+    /**
+     * @return the claims of a well-formed, correctly signed, unexpired and unrevoked token, else null
+     */
+    public Claims verify(String token) {
+        if (token == null) return null;
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) return null;
+        byte[] body;
+        byte[] signature;
+        try {
+            body = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(sign(body), signature)) return null;
+
+        String[] parts = new String(body, StandardCharsets.UTF_8).split("\\|", -1);
+        if (parts.length != 6 || !VERSION.equals(parts[0])) return null;
+        Claims claims;
+        try {
+            claims = new Claims(
+                    parts[1],
+                    parts[2].isEmpty() ? null : UserRole.valueOf(parts[2]),
+                    parts[3].isEmpty() ? null : parts[3],
+                    Long.parseLong(parts[4]),
+                    Instant.ofEpochSecond(Long.parseLong(parts[5])));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!claims.expiresAt.isAfter(Instant.now())) return null;
+        Revocation r = revoked.get(claims.userId);
+        if (r != null && claims.statusVersion < r.minVersion) return null;
+        return claims;
+    }
+
+    /**
+     * Refuses every token of the user issued at a status version below minVersion.
+     */
+    public void revoke(String userId, long minVersion) {
+        Instant until = Instant.now().plus(Duration.ofMinutes(ttlMinutes));
+        revoked.merge(userId, new Revocation(minVersion, until),
+                (a, b) -> new Revocation(Math.max(a.minVersion, b.minVersion), until));
+    }
+
+    @Scheduled(fixedDelayString = "${barbercut.auth.revocation-prune-ms:600000}")
+    public void pruneRevocations() {
+        Instant now = Instant.now();
+        revoked.values().removeIf(r -> r.until.isBefore(now));
+    }
+
+    /** Claims of the token on the current request, or null for anonymous requests. */
+    public static Claims current() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getPrincipal() instanceof Claims c ? c : null;
+    }
+
+    private byte[] sign(byte[] body) {
+        Mac mac = macs.get();
+        mac.reset();
+        return mac.doFinal(body);
+    }
+}
@@ -0,0 +1,56 @@
+package com.barbercut.auth.service;
+
+import com.barbercut.auth.model.User;
+import com.barbercut.auth.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batched user resolution for view mapping: callers collect every user id a response needs
+ * and resolve them with a single $in query instead of one findById per row.
+ */
+@Service
+public class UserLookupService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Loads the given users keyed by id. Null ids are ignored and unknown ids are simply absent from the map.
+     */
+    public Map<String, User> findByIds(Collection<String> ids) {
+        Set<String> wanted = new HashSet<>();
+        for (String id : ids) {
+            if (id != null) wanted.add(id);
+        }
+        if (wanted.isEmpty()) return Collections.emptyMap();
+        Map<String, User> out = new HashMap<>();
+        for (User u : userRepository.findAllById(wanted)) {
+            out.put(u.getId(), u);
+        }
+        return out;
+    }
+
+    /**
+     * Loads barber users keyed by their barberId, with one $in query on users.barberId.
+     */
+    public Map<String, User> findByBarberIds(Collection<String> barberIds) {
+        Set<String> wanted = new HashSet<>();
+        for (String id : barberIds) {
+            if (id != null) wanted.add(id);
+        }
+        if (wanted.isEmpty()) return Collections.emptyMap();
+        Map<String, User> out = new HashMap<>();
+        for (User u : userRepository.findByBarberIdIn(wanted)) {
+            out.putIfAbsent(u.getBarberId(), u);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,63 @@
+package com.barbercut.config;
+
+import com.barbercut.admin.model.Barber;
+import com.barbercut.auth.model.User;
+import com.barbercut.notification.model.Notification;
+import com.barbercut.rating.model.Rating;
+import com.barbercut.reservation.model.Reservation;
+import com.barbercut.reservation.model.ReservationArchive;
+import com.barbercut.reservation.model.Slot;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared on the documents at startup, instead of enabling
+ * spring.data.mongodb.auto-index-creation for every entity.
+ *
+ * Unique indexes on users and barbers are left out: existing databases may hold duplicate
+ * emails or usernames, and building those indexes would fail (see the README for the
+ * clean-up before creating them). Any other index that cannot be built is logged and skipped,
+ * so the application still starts.
+ */
+@Configuration
+public class MongoIndexConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+    private static final List<Class<?>> INDEXED = List.of(
+            Notification.class, Rating.class, Reservation.class, ReservationArchive.class, Slot.class);
+    // Non-unique indexes only
+    private static final List<Class<?>> UNIQUE_DEFERRED = List.of(User.class, Barber.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> type : INDEXED) ensure(resolver, type, true);
+        for (Class<?> type : UNIQUE_DEFERRED) ensure(resolver, type, false);
+    }
+
+    private void ensure(IndexResolver resolver, Class<?> type, boolean includeUnique) {
+        IndexOperations ops = mongoTemplate.indexOps(type);
+        for (IndexDefinition index : resolver.resolveIndexFor(type)) {
+            if (!includeUnique && Boolean.TRUE.equals(index.getIndexOptions().get("unique"))) continue;
+            try {
+                ops.ensureIndex(index);
+            } catch (Exception e) {
+                log.warn("Could not create index {} on {}: {}", index.getIndexKeys().toJson(), type.getSimpleName(), e.getMessage());
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.barbercut.notification.controller;
 
 import com.barbercut.notification.model.Notification;
+import com.barbercut.notification.model.NotificationSummary;
+import com.barbercut.notification.repository.NotificationSummaryRepository;
 import com.barbercut.notification.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
@@ -18,14 +20,20 @@ public class NotificationController {
     @Autowired
     private NotificationService service;
 
+    @Autowired
+    private NotificationSummaryRepository summaryRepository;
+
     @GetMapping
-    public ResponseEntity<List<Notification>> list() {
-        return ResponseEntity.ok(service.listAll());
+    public ResponseEntity<List<Notification>> list(
+            @RequestParam(defaultValue = "" + NotificationService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) Long beforeSeq) {
+        // Always paged; older pages continue with beforeSeq = the smallest seq already received
+        return ResponseEntity.ok(service.page(beforeSeq, limit));
     }
 
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter stream() {
-        return service.subscribe();
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return service.subscribe(lastEventId);
     }
 
     @PutMapping("/{id}/read")
@@ -35,6 +43,17 @@ public class NotificationController {
         return ResponseEntity.ok(n);
     }
 
+    /** Daily roll-ups of notifications past their retention period. */
+    @GetMapping("/summaries")
+    public ResponseEntity<List<NotificationSummary>> summaries() {
+        return ResponseEntity.ok(summaryRepository.findAllByOrderByDayDesc());
+    }
+
+    @GetMapping("/unread-count")
+    public ResponseEntity<java.util.Map<String, Long>> unreadCount() {
+        return ResponseEntity.ok(java.util.Map.of("count", service.unreadCount()));
+    }
+
     @PutMapping("/mark-read")
     public ResponseEntity<?> markAllRead() {
         service.markAllRead();
@@ -1,15 +1,23 @@
 package com.barbercut.notification.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 import java.util.Map;
 
 @Document(collection = "notifications")
+@CompoundIndexes({
+    // Listing and ring preload sort (newest first), and the retention compactor's per-type scan
+    @CompoundIndex(name = "seq_created_idx", def = "{'seq': -1, 'createdAt': -1}"),
+    @CompoundIndex(name = "type_created_idx", def = "{'type': 1, 'createdAt': 1}")
+})
 public class Notification {
     @Id
     private String id;
+    private long seq; // monotonic publish order; also the SSE event id used for Last-Event-ID replay
     private String type; // e.g. SLOT_CREATED, BOOKED, RESERVATION_COMPLETED, USER_SIGNUP, RATING_REVIEW, RESERVATION_DECISION, PROFILE_UPDATE
     private String title;
     private String body;
@@ -32,6 +40,9 @@ public class Notification {
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+
     public String getType() { return type; }
     public void setType(String type) { this.type = type; }
 
@@ -0,0 +1,46 @@
+package com.barbercut.notification.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One day's worth of a notification type, rolled up by the retention compactor once the
+ * individual notifications passed their retention period.
+ */
+@Document(collection = "notification_summaries")
+public class NotificationSummary {
+    @Id
+    private String id; // TYPE|yyyy-MM-dd
+    private String type;
+    private LocalDate day; // UTC
+    private long count;
+    private long unreadCount;
+    private Instant firstAt;
+    private Instant lastAt;
+
+    public NotificationSummary() {}
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public long getUnreadCount() { return unreadCount; }
+    public void setUnreadCount(long unreadCount) { this.unreadCount = unreadCount; }
+
+    public Instant getFirstAt() { return firstAt; }
+    public void setFirstAt(Instant firstAt) { this.firstAt = firstAt; }
+
+    public Instant getLastAt() { return lastAt; }
+    public void setLastAt(Instant lastAt) { this.lastAt = lastAt; }
+}
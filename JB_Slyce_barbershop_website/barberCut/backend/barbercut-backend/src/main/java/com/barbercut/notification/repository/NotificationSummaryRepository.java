@@ -0,0 +1,12 @@
+package com.barbercut.notification.repository;
+
+import com.barbercut.notification.model.NotificationSummary;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NotificationSummaryRepository extends MongoRepository<NotificationSummary, String> {
+    List<NotificationSummary> findAllByOrderByDayDesc();
+}
@@ -0,0 +1,162 @@
+package com.barbercut.notification.service;
+
+import com.barbercut.notification.model.Notification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Merges bursts of same-type, same-actor notifications into one digest.
+ *
+ * The first event of a configured type opens a window of window-ms for its (type, actor) pair;
+ * later events in the window are absorbed. When the window closes a lone event is published
+ * unchanged, otherwise one digest is published whose meta lists the merged item ids.
+ */
+@Component
+public class NotificationCoalescer {
+
+    // Digests are closed early at this size so meta stays small
+    private static final int MAX_ITEMS = 500;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${barbercut.notifications.coalesce.types:SLOT_CREATED}")
+    private String typeList;
+    @Value("${barbercut.notifications.coalesce.window-ms:5000}")
+    private long windowMs;
+
+    private static class Digest {
+        final Notification first;
+        final List<String> itemIds = new ArrayList<>();
+        final long openedAt = System.currentTimeMillis();
+        Instant lastAt;
+
+        Digest(Notification first) {
+            this.first = first;
+        }
+    }
+
+    private final Set<String> types = new HashSet<>();
+    private final Map<String, Digest> open = new LinkedHashMap<>();
+    private Consumer<Notification> sink = n -> {};
+    private Counter absorbed;
+    private Counter emitted;
+
+    @PostConstruct
+    public void start() {
+        for (String t : typeList.split(",")) {
+            if (!t.isBlank()) types.add(t.trim());
+        }
+        absorbed = Counter.builder("notifications.coalesce.in")
+                .description("Notifications entering the coalescing stage").register(meterRegistry);
+        emitted = Counter.builder("notifications.coalesce.out")
+                .description("Notifications written for them after coalescing").register(meterRegistry);
+        // Write amplification avoided: events in per notification written
+        Gauge.builder("notifications.coalesce.reduction", this,
+                c -> c.emitted.count() == 0 ? 1.0 : c.absorbed.count() / c.emitted.count())
+                .description("Coalesced events per written notification").register(meterRegistry);
+    }
+
+    /** Where closed windows are published. */
+    public void onFlush(Consumer<Notification> callback) {
+        this.sink = callback;
+    }
+
+    /**
+     * Takes the notification into a window if its type is coalesced; returns false when the caller
+     * should publish it directly.
+     */
+    public boolean offer(Notification n) {
+        if (!types.contains(n.getType())) return false;
+        absorbed.increment();
+        Notification full = null;
+        synchronized (open) {
+            String key = n.getType() + "|" + n.getActorId();
+            Digest d = open.computeIfAbsent(key, k -> new Digest(n));
+            d.itemIds.add(n.getTargetId());
+            d.lastAt = n.getCreatedAt();
+            if (d.itemIds.size() >= MAX_ITEMS) {
+                open.remove(key);
+                full = close(d);
+            }
+        }
+        if (full != null) emit(full);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${barbercut.notifications.coalesce.flush-ms:500}")
+    public void flushDue() {
+        flush(System.currentTimeMillis() - windowMs);
+    }
+
+    /** Closes every open window now; called on shutdown while the write queue is still running. */
+    public void flushAll() {
+        flush(Long.MAX_VALUE);
+    }
+
+    private void flush(long openedBefore) {
+        List<Notification> due = new ArrayList<>();
+        synchronized (open) {
+            Iterator<Digest> it = open.values().iterator();
+            while (it.hasNext()) {
+                Digest d = it.next();
+                if (d.openedAt > openedBefore) continue;
+                it.remove();
+                due.add(close(d));
+            }
+        }
+        for (Notification n : due) emit(n);
+    }
+
+    private void emit(Notification n) {
+        emitted.increment();
+        sink.accept(n);
+    }
+
+    private Notification close(Digest d) {
+        if (d.itemIds.size() == 1) return d.first;
+        Notification first = d.first;
+        int count = d.itemIds.size();
+        Notification digest = new Notification(first.getType(), first.getTitle() + " (" + count + ")", digestBody(first, count));
+        digest.setId(new ObjectId().toHexString());
+        digest.setActorId(first.getActorId());
+        digest.setTargetId(first.getActorId());
+        Map<String, Object> meta = new HashMap<>();
+        if (first.getMeta() != null) meta.putAll(first.getMeta());
+        // Per-item fields of the first event no longer describe the digest
+        meta.keySet().removeAll(Set.of("start"));
+        meta.put("coalesced", true);
+        meta.put("count", count);
+        meta.put("itemIds", new ArrayList<>(d.itemIds));
+        meta.put("firstAt", first.getCreatedAt());
+        meta.put("lastAt", d.lastAt);
+        digest.setMeta(meta);
+        return digest;
+    }
+
+    private static String digestBody(Notification first, int count) {
+        if ("SLOT_CREATED".equals(first.getType())) {
+            return "Barber " + first.getActorId() + " created " + count + " slots";
+        }
+        return count + " " + first.getType() + " events from " + first.getActorId();
+    }
+
+}
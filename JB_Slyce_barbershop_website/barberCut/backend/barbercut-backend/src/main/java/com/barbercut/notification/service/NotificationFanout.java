@@ -0,0 +1,250 @@
+package com.barbercut.notification.service;
+
+import com.barbercut.notification.model.Notification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers notifications to SSE subscribers without letting one connection hold up the others.
+ *
+ * Each event is encoded to JSON once and the same frame is queued to every subscriber. Every
+ * subscriber has its own bounded buffer, drained by at most one task at a time on a shared pool;
+ * a subscriber whose buffer fills up is a slow consumer and is disconnected (the browser's
+ * EventSource reconnects and reloads the list).
+ *
+ * A send blocked on a stalled socket only returns when the container's write timeout fires, and
+ * would hold its pool thread until then. A watchdog closes any subscriber whose send has run
+ * longer than send-timeout-ms and adds a pool thread to stand in for the stuck one, so healthy
+ * subscribers keep the full pool; the extra thread is retired when the send finally returns.
+ */
+@Component
+public class NotificationFanout {
+
+    // Events sent by one drain task before it yields its pool thread to other subscribers
+    private static final int DRAIN_QUANTUM = 64;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${barbercut.notifications.subscriber-buffer:256}")
+    private int bufferSize;
+    @Value("${barbercut.notifications.fanout-threads:16}")
+    private int threads;
+    @Value("${barbercut.notifications.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor pool;
+    private ScheduledExecutorService watchdog;
+    // Pool threads added in place of ones stuck in a stalled send; guarded by this
+    private int standIns;
+    private Counter slowDisconnects;
+    private Counter stalledDisconnects;
+
+    private class Subscriber implements Runnable {
+        final SseEmitter emitter;
+        final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> buffer = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean closed;
+        // Send in progress and when it started; guarded by this
+        private boolean sending;
+        private long sendStartedAt;
+        private boolean stalled;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            if (closed) return;
+            if (!buffer.offer(frame)) {
+                slowDisconnects.increment();
+                close();
+                // Completing waits for a send in progress, so never do it on the publishing thread
+                pool.execute(emitter::complete);
+                return;
+            }
+            if (scheduled.compareAndSet(false, true)) pool.execute(this);
+        }
+
+        @Override
+        public void run() {
+            int sent = 0;
+            Set<ResponseBodyEmitter.DataWithMediaType> frame;
+            while (!closed && sent < DRAIN_QUANTUM && (frame = buffer.poll()) != null) {
+                boolean failed = false;
+                beginSend();
+                try {
+                    emitter.send(frame);
+                    sent++;
+                } catch (Exception e) {
+                    failed = true;
+                }
+                if (endSend()) {
+                    // The watchdog gave up on this send; retire the stand-in and end the stream
+                    removeStandIn();
+                    if (!failed) pool.execute(emitter::complete);
+                    return;
+                }
+                if (failed) {
+                    close();
+                    return;
+                }
+            }
+            scheduled.set(false);
+            // Frames offered while we were finishing, or left over after the quantum
+            if (!closed && !buffer.isEmpty() && scheduled.compareAndSet(false, true)) pool.execute(this);
+        }
+
+        private synchronized void beginSend() {
+            sending = true;
+            sendStartedAt = System.nanoTime();
+        }
+
+        /** Ends the current send; true when the watchdog marked it stalled meanwhile. */
+        private synchronized boolean endSend() {
+            sending = false;
+            return stalled;
+        }
+
+        /** Marks a send running since before {@code deadline} as stalled, at most once. */
+        synchronized boolean markStalled(long deadline) {
+            if (!sending || stalled || sendStartedAt - deadline > 0) return false;
+            stalled = true;
+            return true;
+        }
+
+        void close() {
+            closed = true;
+            buffer.clear();
+            subscribers.remove(this);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger n = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "sse-fanout-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sse-fanout-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(sendTimeoutMs / 4, 10);
+        watchdog.scheduleAtFixedRate(this::closeStalled, period, period, TimeUnit.MILLISECONDS);
+        Gauge.builder("notifications.subscribers", subscribers, Set::size)
+                .description("Connected notification streams").register(meterRegistry);
+        slowDisconnects = Counter.builder("notifications.subscribers.slow_disconnects")
+                .description("Streams closed because their buffer overflowed").register(meterRegistry);
+        stalledDisconnects = Counter.builder("notifications.subscribers.stalled_disconnects")
+                .description("Streams closed because a send ran past the send timeout").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        watchdog.shutdownNow();
+        pool.shutdownNow();
+        for (Subscriber s : subscribers) s.emitter.complete();
+        subscribers.clear();
+    }
+
+    /**
+     * Opens a stream that first receives {@code replay} (oldest first), or a "reset" event telling
+     * the client to reload the list when the missed range is no longer available.
+     */
+    public SseEmitter subscribe(List<Notification> replay, boolean reset) {
+        // Keep-alive emitter; 0 means no timeout
+        return subscribe(new SseEmitter(0L), replay, reset);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, List<Notification> replay, boolean reset) {
+        Subscriber s = new Subscriber(emitter);
+        emitter.onCompletion(s::close);
+        emitter.onTimeout(s::close);
+        emitter.onError(e -> s.close());
+        subscribers.add(s);
+        // Initial hello; no event id so the client's Last-Event-ID is kept
+        s.offer(SseEmitter.event().name("hello").data("connected").reconnectTime(3000).build());
+        if (reset) {
+            s.offer(SseEmitter.event().name("reset").data("reload").build());
+        } else {
+            for (Notification n : replay) {
+                Set<ResponseBodyEmitter.DataWithMediaType> frame = frame(n);
+                if (frame != null) s.offer(frame);
+            }
+        }
+        return emitter;
+    }
+
+    void closeStalled() {
+        long deadline = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (Subscriber s : subscribers) {
+            if (!s.markStalled(deadline)) continue;
+            stalledDisconnects.increment();
+            s.close();
+            addStandIn();
+        }
+    }
+
+    // Growing sets the maximum first and shrinking the core first, so core never exceeds maximum
+    private synchronized void addStandIn() {
+        standIns++;
+        pool.setMaximumPoolSize(threads + standIns);
+        pool.setCorePoolSize(threads + standIns);
+    }
+
+    private synchronized void removeStandIn() {
+        standIns--;
+        pool.setCorePoolSize(threads + standIns);
+        pool.setMaximumPoolSize(threads + standIns);
+    }
+
+    public void broadcast(Notification n) {
+        if (subscribers.isEmpty()) return;
+        Set<ResponseBodyEmitter.DataWithMediaType> frame = frame(n);
+        if (frame == null) return;
+        for (Subscriber s : subscribers) s.offer(frame);
+    }
+
+    // Serialised once; the String converter writes the same JSON to every subscriber
+    private Set<ResponseBodyEmitter.DataWithMediaType> frame(Notification n) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(n);
+        } catch (Exception e) {
+            return null;
+        }
+        String id = n.getSeq() > 0 ? String.valueOf(n.getSeq()) : (n.getId() != null ? n.getId() : UUID.randomUUID().toString());
+        return SseEmitter.event().name("notification").data(json, MediaType.APPLICATION_JSON).id(id).build();
+    }
+}
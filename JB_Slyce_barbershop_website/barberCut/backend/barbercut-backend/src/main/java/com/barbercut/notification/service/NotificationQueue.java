@@ -0,0 +1,275 @@
+package com.barbercut.notification.service;
+
+import com.barbercut.notification.model.Notification;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Bounded hand-off between publishers and the notifications collection.
+ *
+ * A single writer thread takes the first pending notification, lingers up to linger-ms for more
+ * (at most batch-size), writes them with one unordered insertMany and hands the persisted
+ * notifications to the delivery callback. When the queue is full the overflow policy applies:
+ * "drop" discards the new notification and counts it, "caller-runs" has the publishing thread
+ * write the oldest pending batch itself before trying again. Taking from the queue and writing
+ * happen under one lock, whether on the writer or a publisher, so batches are persisted and
+ * delivered strictly in queue order.
+ *
+ * Ids are assigned before the first attempt, so a failed write is retried (write-retries times,
+ * backing off from write-backoff-ms) for just the documents that did not make it, and a duplicate
+ * key on retry means an earlier attempt already stored that one. Whatever still fails is counted
+ * in notifications.dropped.
+ */
+@Component
+public class NotificationQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationQueue.class);
+    private static final int DUPLICATE_KEY = 11000;
+
+    public enum OverflowPolicy { DROP, CALLER_RUNS }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${barbercut.notifications.queue-capacity:10000}")
+    private int capacity;
+    @Value("${barbercut.notifications.batch-size:200}")
+    private int batchSize;
+    @Value("${barbercut.notifications.linger-ms:50}")
+    private long lingerMs;
+    @Value("${barbercut.notifications.overflow:drop}")
+    private String overflow;
+    @Value("${barbercut.notifications.write-retries:3}")
+    private int writeRetries;
+    @Value("${barbercut.notifications.write-backoff-ms:100}")
+    private long writeBackoffMs;
+
+    private static class Pending {
+        final Notification notification;
+        final long enqueuedAt = System.nanoTime();
+
+        Pending(Notification notification) {
+            this.notification = notification;
+        }
+    }
+
+    private BlockingQueue<Pending> queue;
+    private OverflowPolicy overflowPolicy;
+    private Consumer<List<Notification>> onPersisted = batch -> {};
+    private Thread writer;
+    // Held while taking a batch from the queue and writing it
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final List<Pending> stranded = new ArrayList<>(); // batch in hand when the writer was stopped
+    private volatile boolean running;
+
+    private DistributionSummary batchSizes;
+    private Timer publishLag;
+    private Counter dropped;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        overflowPolicy = OverflowPolicy.valueOf(overflow.trim().toUpperCase().replace('-', '_'));
+        Gauge.builder("notifications.queue.depth", queue, BlockingQueue::size)
+                .description("Notifications waiting to be written").register(meterRegistry);
+        batchSizes = DistributionSummary.builder("notifications.batch.size")
+                .description("Notifications written per insertMany").register(meterRegistry);
+        publishLag = Timer.builder("notifications.publish.lag")
+                .description("Time from publish to persisted and delivered").publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        dropped = Counter.builder("notifications.dropped")
+                .description("Notifications discarded because the queue was full or writing them kept failing")
+                .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::runWriter, "notification-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Receives every persisted batch, in queue order, on the writer thread (or a caller under caller-runs). */
+    public void onPersisted(Consumer<List<Notification>> callback) {
+        this.onPersisted = callback;
+    }
+
+    /** Queues a notification for writing; false when the queue is full. */
+    public boolean offer(Notification n) {
+        return queue.offer(new Pending(n));
+    }
+
+    /**
+     * Applies the overflow policy after {@link #offer} failed: returns true once the caller should
+     * offer again (caller-runs, after writing the oldest pending batch on this thread), or false
+     * when the notification is dropped. Call it without holding any publishing lock.
+     */
+    public boolean overflow() {
+        if (overflowPolicy == OverflowPolicy.CALLER_RUNS) {
+            writeLock.lock();
+            try {
+                List<Pending> batch = new ArrayList<>(batchSize);
+                queue.drainTo(batch, batchSize);
+                if (!batch.isEmpty()) write(batch);
+            } finally {
+                writeLock.unlock();
+            }
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(5000);
+        // Flush whatever is left on the shutting-down thread
+        writeLock.lock();
+        try {
+            List<Pending> rest = new ArrayList<>(stranded);
+            queue.drainTo(rest);
+            for (int i = 0; i < rest.size(); i += batchSize) {
+                write(rest.subList(i, Math.min(rest.size(), i + batchSize)));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                writeLock.lockInterruptibly();
+                try {
+                    // A caller-runs publisher only waits here when the queue is full, so these polls return at once
+                    Pending first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                    while (batch.size() < batchSize) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            queue.drainTo(batch, batchSize - batch.size());
+                            break;
+                        }
+                        Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) break;
+                        batch.add(next);
+                    }
+                    write(batch);
+                } finally {
+                    writeLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                // stop() drains what is left
+                stranded.addAll(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        for (Pending p : batch) {
+            if (p.notification.getId() == null) p.notification.setId(new ObjectId().toHexString());
+        }
+        List<Pending> persisted = new ArrayList<>(batch.size());
+        List<Pending> remaining = new ArrayList<>(batch);
+        for (int attempt = 0; ; attempt++) {
+            Set<Integer> failed = insert(remaining);
+            for (int i = 0; i < remaining.size(); i++) {
+                if (!failed.contains(i)) persisted.add(remaining.get(i));
+            }
+            List<Pending> retry = new ArrayList<>(failed.size());
+            for (int i : failed) retry.add(remaining.get(i));
+            remaining = retry;
+            if (remaining.isEmpty()) break;
+            if (attempt >= writeRetries) {
+                dropped.increment(remaining.size());
+                log.warn("Gave up writing {} notifications after {} attempts", remaining.size(), attempt + 1);
+                break;
+            }
+            try {
+                Thread.sleep(writeBackoffMs << attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (Thread.currentThread() == writer) {
+                    // stop() flushes these once the writer has exited
+                    stranded.addAll(remaining);
+                } else {
+                    dropped.increment(remaining.size());
+                }
+                break;
+            }
+        }
+        if (persisted.isEmpty()) return;
+        // Keep publish order for delivery, whatever order the retries stored them in
+        persisted.sort((a, b) -> Long.compare(a.notification.getSeq(), b.notification.getSeq()));
+        List<Notification> docs = new ArrayList<>(persisted.size());
+        for (Pending p : persisted) docs.add(p.notification);
+        batchSizes.record(docs.size());
+        try {
+            onPersisted.accept(docs);
+        } catch (Exception e) {
+            log.warn("Notification delivery failed", e);
+        }
+        long now = System.nanoTime();
+        for (Pending p : persisted) publishLag.record(now - p.enqueuedAt, TimeUnit.NANOSECONDS);
+    }
+
+    /** One unordered insertMany; returns the indexes that failed with something other than a duplicate. */
+    private Set<Integer> insert(List<Pending> batch) {
+        List<Notification> docs = new ArrayList<>(batch.size());
+        for (Pending p : batch) docs.add(p.notification);
+        Set<Integer> failed = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class).insert(docs).execute();
+        } catch (BulkOperationException e) {
+            collectFailures(e.getErrors(), failed);
+        } catch (DuplicateKeyException e) {
+            // Translated from the bulk write when any of them was already stored
+            if (e.getCause() instanceof MongoBulkWriteException bulk) collectFailures(bulk.getWriteErrors(), failed);
+        } catch (Exception e) {
+            log.warn("Failed to write {} notifications", docs.size(), e);
+            for (int i = 0; i < docs.size(); i++) failed.add(i);
+        }
+        return failed;
+    }
+
+    private static void collectFailures(List<BulkWriteError> errors, Set<Integer> failed) {
+        for (BulkWriteError error : errors) {
+            if (error.getCode() != DUPLICATE_KEY) failed.add(error.getIndex());
+        }
+    }
+}
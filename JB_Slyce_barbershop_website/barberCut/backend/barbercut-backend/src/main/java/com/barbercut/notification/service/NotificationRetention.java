@@ -0,0 +1,192 @@
+package com.barbercut.notification.service;
+
+import com.barbercut.notification.model.Notification;
+import com.barbercut.notification.model.NotificationSummary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Keeps the notifications collection bounded.
+ *
+ * Anything older than its type's retention period (type-days, else default-days) is rolled into
+ * per-day notification_summaries documents and deleted by a compactor that works in small batches
+ * with a pause in between, so it never competes with the live write path. The compactor runs on its
+ * own thread; the cron trigger only hands it off and never holds the shared scheduler thread.
+ *
+ * Read notifications also expire through a partial TTL index on createdAt (read-days). That index
+ * is a safety net for notifications the compactor has not reached, so read-days must be longer
+ * than every retention period or read notifications would vanish before being summarised.
+ */
+@Component
+public class NotificationRetention {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationRetention.class);
+    private static final String READ_TTL_INDEX = "read_ttl_idx";
+    private static final List<String> RETIRED_INDEXES = List.of("created_idx", "seq_-1");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private NotificationService notificationService;
+
+    @Value("${barbercut.notifications.retention.read-days:100}")
+    private long readDays;
+    @Value("${barbercut.notifications.retention.default-days:90}")
+    private long defaultDays;
+    @Value("#{${barbercut.notifications.retention.type-days:{:}}}")
+    private Map<String, Long> typeDays;
+    @Value("${barbercut.notifications.compactor.batch-size:500}")
+    private int batchSize;
+    @Value("${barbercut.notifications.compactor.pause-ms:200}")
+    private long pauseMs;
+    @Value("${barbercut.notifications.compactor.max-batches:200}")
+    private int maxBatches;
+
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "notification-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    @PostConstruct
+    public void ensureTtlIndex() {
+        // The compactor runs daily, so the TTL has to trail the longest retention by at least a day
+        long longest = defaultDays;
+        if (typeDays != null) {
+            for (long days : typeDays.values()) longest = Math.max(longest, days);
+        }
+        if (readDays <= longest) {
+            throw new IllegalStateException("barbercut.notifications.retention.read-days (" + readDays
+                    + ") must be greater than the longest retention period (" + longest
+                    + " days), otherwise read notifications expire before they are summarised");
+        }
+
+        IndexOperations ops = mongoTemplate.indexOps(Notification.class);
+        long seconds = Duration.ofDays(readDays).toSeconds();
+        for (IndexInfo info : ops.getIndexInfo()) {
+            // Superseded by seq_created_idx, which matches the listing sort
+            if (RETIRED_INDEXES.contains(info.getName())) ops.dropIndex(info.getName());
+            // A changed retention needs the index recreated with the new expireAfterSeconds
+            if (READ_TTL_INDEX.equals(info.getName())
+                    && info.getExpireAfter().map(d -> d.toSeconds() != seconds).orElse(true)) {
+                ops.dropIndex(READ_TTL_INDEX);
+            }
+        }
+        ops.ensureIndex(new Index().on("createdAt", Sort.Direction.ASC)
+                .named(READ_TTL_INDEX)
+                .expire(seconds)
+                .partial(PartialIndexFilter.of(where("read").is(true))));
+    }
+
+    @PreDestroy
+    public void stop() {
+        compactor.shutdownNow();
+    }
+
+    /** Starts a compaction run on the compactor thread unless one is still going. */
+    @Scheduled(cron = "${barbercut.notifications.compactor.cron:0 15 4 * * *}")
+    public void trigger() {
+        if (!compacting.compareAndSet(false, true)) return;
+        try {
+            compactor.execute(() -> {
+                try {
+                    compact();
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            compacting.set(false);
+        }
+    }
+
+    void compact() {
+        int removed = 0;
+        int batches = 0;
+        try {
+            for (String type : mongoTemplate.findDistinct(new Query(), "type", Notification.class, String.class)) {
+                long days = typeDays != null && typeDays.containsKey(type) ? typeDays.get(type) : defaultDays;
+                Instant cutoff = Instant.now().minus(Duration.ofDays(days));
+                int n;
+                while (batches < maxBatches && (n = compactBatch(type, cutoff)) > 0) {
+                    removed += n;
+                    batches++;
+                    Thread.sleep(pauseMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (DataAccessException e) {
+            log.warn("Notification compaction stopped after {} notifications", removed, e);
+        }
+        if (removed > 0) notificationService.resyncUnread();
+    }
+
+    /**
+     * Rolls up and deletes one batch of the oldest expired notifications of a type.
+     * A crash between the two steps can count a batch twice in its summaries.
+     */
+    int compactBatch(String type, Instant cutoff) {
+        Query q = query(where("type").is(type).and("createdAt").lt(cutoff))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                .limit(batchSize);
+        q.fields().include("type", "createdAt", "read");
+        List<Notification> batch = mongoTemplate.find(q, Notification.class);
+        if (batch.isEmpty()) return 0;
+
+        Map<LocalDate, List<Notification>> byDay = new LinkedHashMap<>();
+        for (Notification n : batch) {
+            LocalDate day = n.getCreatedAt().atZone(ZoneOffset.UTC).toLocalDate();
+            byDay.computeIfAbsent(day, k -> new ArrayList<>()).add(n);
+        }
+        for (Map.Entry<LocalDate, List<Notification>> e : byDay.entrySet()) {
+            List<Notification> items = e.getValue();
+            long unread = items.stream().filter(n -> !n.isRead()).count();
+            Update update = new Update()
+                    .setOnInsert("type", type)
+                    .setOnInsert("day", e.getKey())
+                    .inc("count", items.size())
+                    .inc("unreadCount", unread)
+                    .min("firstAt", items.get(0).getCreatedAt())
+                    .max("lastAt", items.get(items.size() - 1).getCreatedAt());
+            mongoTemplate.upsert(query(where("id").is(type + "|" + e.getKey())), update, NotificationSummary.class);
+        }
+
+        List<String> ids = new ArrayList<>(batch.size());
+        for (Notification n : batch) ids.add(n.getId());
+        mongoTemplate.remove(query(where("id").in(ids)), Notification.class);
+        return batch.size();
+    }
+}
@@ -0,0 +1,86 @@
+package com.barbercut.notification.service;
+
+import com.barbercut.notification.model.Notification;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Fixed-size tail of the most recently persisted notifications, in sequence order.
+ * Not thread-safe; NotificationService guards it.
+ */
+class NotificationRing {
+
+    private final int capacity;
+    private final ArrayDeque<Notification> items;
+    // True once anything older than the ring's oldest entry exists in Mongo
+    private boolean truncated;
+    private long lastSeq;
+
+    NotificationRing(int capacity) {
+        this.capacity = capacity;
+        this.items = new ArrayDeque<>(capacity);
+    }
+
+    void append(Notification n) {
+        if (items.size() == capacity) {
+            items.removeFirst();
+            truncated = true;
+        }
+        items.addLast(n);
+        lastSeq = Math.max(lastSeq, n.getSeq());
+    }
+
+    void markTruncated() {
+        truncated = true;
+    }
+
+    long lastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Everything after {@code seq}, oldest first, or null if the ring no longer reaches back that far.
+     */
+    List<Notification> since(long seq) {
+        List<Notification> out = new ArrayList<>();
+        if (seq >= lastSeq) return out;
+        if (truncated && (items.isEmpty() || items.peekFirst().getSeq() > seq + 1)) return null;
+        Iterator<Notification> it = items.descendingIterator();
+        while (it.hasNext()) {
+            Notification n = it.next();
+            if (n.getSeq() <= seq) break;
+            out.add(n);
+        }
+        Collections.reverse(out);
+        return out;
+    }
+
+    /**
+     * Up to {@code limit} notifications with seq below {@code before} (any when null), newest first,
+     * or null when older entries were evicted and the ring cannot fill the page.
+     */
+    List<Notification> page(Long before, int limit) {
+        List<Notification> out = new ArrayList<>(limit);
+        Iterator<Notification> it = items.descendingIterator();
+        while (it.hasNext() && out.size() < limit) {
+            Notification n = it.next();
+            if (before == null || n.getSeq() < before) out.add(n);
+        }
+        if (out.size() < limit && truncated) return null;
+        return out;
+    }
+
+    void markRead(String id, boolean read) {
+        for (Notification n : items) {
+            if (n.getId() != null && n.getId().equals(id)) n.setRead(read);
+        }
+    }
+
+    void markAllRead() {
+        for (Notification n : items) n.setRead(true);
+    }
+}
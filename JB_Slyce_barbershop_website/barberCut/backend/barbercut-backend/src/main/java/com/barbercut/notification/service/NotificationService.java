@@ -2,86 +2,235 @@ package com.barbercut.notification.service;
 
 import com.barbercut.notification.model.Notification;
 import com.barbercut.notification.repository.NotificationRepository;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.MediaType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
 @Service
 public class NotificationService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
+    private static final int BACKFILL_BATCH = 1000;
+
     @Autowired
     private NotificationRepository repository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private NotificationQueue queue;
+    @Autowired
+    private NotificationFanout fanout;
+    @Autowired
+    private NotificationCoalescer coalescer;
+
+    @Value("${barbercut.notifications.ring-size:1000}")
+    private int ringSize;
+
+    // Hot tail of persisted notifications; its monitor also orders ring appends, live broadcasts and replays
+    private NotificationRing ring;
+    private final Object publishLock = new Object();
+    private long seq;
+    private final AtomicLong unread = new AtomicLong();
 
-    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    @PostConstruct
+    public void init() {
+        backfillSeq();
+        ring = new NotificationRing(ringSize);
+        Query latest = new Query().with(newestFirst()).limit(ringSize);
+        List<Notification> recent = mongoTemplate.find(latest, Notification.class);
+        if (recent.size() == ringSize) ring.markTruncated();
+        for (int i = recent.size() - 1; i >= 0; i--) ring.append(recent.get(i));
+        seq = ring.lastSeq();
+        resyncUnread();
+        coalescer.onFlush(this::submit);
 
-    public List<Notification> listAll() {
-        return repository.findAllByOrderByCreatedAtDesc();
+        // Live delivery happens on the writer thread once a batch is persisted
+        queue.onPersisted(batch -> {
+            for (Notification n : batch) {
+                if (!n.isRead()) unread.incrementAndGet();
+            }
+            synchronized (ring) {
+                for (Notification n : batch) {
+                    ring.append(n);
+                    fanout.broadcast(n);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Runs before the queue (a dependency) is stopped, so open digests still get written
+        coalescer.flushAll();
+    }
+
+    /**
+     * Newest-first page of notifications with seq below {@code beforeSeq} (from the top when null).
+     * Pages inside the in-memory tail are served without a Mongo query.
+     */
+    public List<Notification> page(Long beforeSeq, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        synchronized (ring) {
+            List<Notification> hot = ring.page(beforeSeq, size);
+            if (hot != null) return hot;
+        }
+        Query q = beforeSeq != null ? new Query(where("seq").lt(beforeSeq)) : new Query();
+        return mongoTemplate.find(q.with(newestFirst()).limit(size), Notification.class);
     }
 
     public Notification setRead(String id, boolean read) {
-        Optional<Notification> opt = repository.findById(id);
-        if (opt.isEmpty()) return null;
-        Notification n = opt.get();
-        n.setRead(read);
-        return repository.save(n);
+        // Only matches when the flag actually changes, which is what keeps the unread counter exact
+        Notification updated = mongoTemplate.findAndModify(
+                query(where("id").is(id).and("read").is(!read)),
+                Update.update("read", read),
+                FindAndModifyOptions.options().returnNew(true),
+                Notification.class);
+        if (updated == null) {
+            // Unknown id, or already in the requested state
+            return repository.findById(id).orElse(null);
+        }
+        unread.addAndGet(read ? -1 : 1);
+        synchronized (ring) {
+            ring.markRead(id, read);
+        }
+        return updated;
     }
 
     public void markAllRead() {
-        List<Notification> all = repository.findAll();
-        for (Notification n : all) {
-            if (!n.isRead()) {
-                n.setRead(true);
-            }
+        UpdateResult result = mongoTemplate.updateMulti(
+                query(where("read").is(false)), Update.update("read", true), Notification.class);
+        unread.addAndGet(-result.getModifiedCount());
+        synchronized (ring) {
+            ring.markAllRead();
         }
-        repository.saveAll(all);
     }
 
+    public long unreadCount() {
+        return Math.max(0, unread.get());
+    }
+
+    /** Corrects any drift in the unread counter (e.g. writes made by another instance). */
+    @Scheduled(fixedDelayString = "${barbercut.notifications.unread-resync-ms:300000}")
+    public void resyncUnread() {
+        unread.set(mongoTemplate.count(query(where("read").is(false)), Notification.class));
+    }
+
+    /**
+     * Queues a notification; it is written and pushed to subscribers asynchronously in batches.
+     * The returned notification already carries its id, but may not be readable from Mongo yet,
+     * and for coalesced types it may only ever be stored as part of a digest.
+     */
     public Notification publish(String type, String title, String body, String actorId, String targetId, Map<String, Object> meta) {
         Notification n = new Notification(type, title, body);
+        n.setId(new ObjectId().toHexString());
         n.setActorId(actorId);
         n.setTargetId(targetId);
         n.setMeta(meta);
         if (n.getCreatedAt() == null) n.setCreatedAt(Instant.now());
-        Notification saved = repository.save(n);
-        broadcast(saved);
-        return saved;
+        // Bursty types are merged into a digest and published when their window closes
+        if (!coalescer.offer(n)) submit(n);
+        return n;
     }
 
-    public SseEmitter subscribe() {
-        // Keep-alive emitter; 0 means no timeout
-        SseEmitter emitter = new SseEmitter(0L);
-        emitters.add(emitter);
-        emitter.onCompletion(() -> emitters.remove(emitter));
-        emitter.onTimeout(() -> emitters.remove(emitter));
-        emitter.onError(e -> emitters.remove(emitter));
-        // Initial hello
-        try {
-            SseEmitter.SseEventBuilder ev = SseEmitter.event()
-                    .name("hello").data("connected").id(UUID.randomUUID().toString())
-                    .reconnectTime(3000);
-            emitter.send(ev);
-        } catch (IOException ignored) {}
-        return emitter;
+    private void submit(Notification n) {
+        // Sequence numbers enter the queue in order, so they are persisted and delivered in order.
+        // A seq is only taken once the offer succeeds; a full queue is dealt with outside the lock,
+        // so a caller-runs write never holds up other publishers.
+        while (true) {
+            synchronized (publishLock) {
+                n.setSeq(seq + 1);
+                if (queue.offer(n)) {
+                    seq++;
+                    return;
+                }
+            }
+            if (!queue.overflow()) return;
+        }
     }
 
-    private void broadcast(Notification n) {
-        List<SseEmitter> dead = new ArrayList<>();
-        for (SseEmitter emitter : emitters) {
+    /**
+     * Gives notifications stored before sequence numbers existed (seq missing or 0) negative seqs
+     * below every other one, oldest lowest, so seq-based paging reaches them too.
+     */
+    private void backfillSeq() {
+        Criteria legacy = new Criteria().orOperator(where("seq").exists(false), where("seq").is(0));
+        long count = mongoTemplate.count(new Query(legacy), Notification.class);
+        if (count == 0) return;
+        Query lowest = new Query(where("seq").ne(0).exists(true)).with(Sort.by(Sort.Direction.ASC, "seq")).limit(1);
+        lowest.fields().include("seq");
+        Notification bottom = mongoTemplate.findOne(lowest, Notification.class);
+        long next = Math.min(0, bottom != null ? bottom.getSeq() : 0) - count;
+
+        Query q = new Query(legacy).with(Sort.by(Sort.Direction.ASC, "createdAt").and(Sort.by(Sort.Direction.ASC, "id")));
+        q.fields().include("id");
+        long updated = 0;
+        List<Notification> batch = new ArrayList<>(BACKFILL_BATCH);
+        try (Stream<Notification> docs = mongoTemplate.stream(q, Notification.class)) {
+            Iterator<Notification> it = docs.iterator();
+            while (it.hasNext()) {
+                batch.add(it.next());
+                if (batch.size() == BACKFILL_BATCH || !it.hasNext()) {
+                    BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class);
+                    for (Notification n : batch) {
+                        // Conditional, so an instance starting at the same time cannot renumber it
+                        ops.updateOne(new Query(where("id").is(n.getId()).andOperator(legacy)), Update.update("seq", next++));
+                    }
+                    updated += ops.execute().getModifiedCount();
+                    batch.clear();
+                }
+            }
+        }
+        log.info("Backfilled seq for {} notifications stored before sequence numbers", updated);
+    }
+
+    /**
+     * Opens a stream. With the Last-Event-ID of a previous stream, the notifications it missed are
+     * replayed from the in-memory tail, or the client is told to reload if they fell out of it.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        Long after = null;
+        if (lastEventId != null && !lastEventId.isEmpty()) {
             try {
-                SseEmitter.SseEventBuilder ev = SseEmitter.event()
-                        .name("notification")
-                        .data(n, MediaType.APPLICATION_JSON)
-                        .id(n.getId() != null ? n.getId() : UUID.randomUUID().toString());
-                emitter.send(ev);
-            } catch (Exception e) {
-                dead.add(emitter);
+                after = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException ignored) {
+                // An id from before sequence numbers existed; treat it as too old to replay
             }
         }
-        if (!dead.isEmpty()) emitters.removeAll(dead);
+        synchronized (ring) {
+            if (lastEventId == null || lastEventId.isEmpty()) {
+                return fanout.subscribe(Collections.emptyList(), false);
+            }
+            List<Notification> missed = after != null ? ring.since(after) : null;
+            return fanout.subscribe(missed != null ? missed : Collections.emptyList(), missed == null);
+        }
+    }
+
+    private static Sort newestFirst() {
+        return Sort.by(Sort.Direction.DESC, "seq").and(Sort.by(Sort.Direction.DESC, "createdAt"));
     }
 }
@@ -2,24 +2,29 @@ package com.barbercut.rating.controller;
 
 import com.barbercut.rating.model.Rating;
 import com.barbercut.auth.model.User;
-import com.barbercut.auth.repository.UserRepository;
+import com.barbercut.auth.service.UserLookupService;
+import com.barbercut.rating.model.BarberRatingStats;
 import com.barbercut.rating.repository.RatingRepository;
+import com.barbercut.rating.service.BarberLeaderboard;
+import com.barbercut.rating.service.RatingFeedService;
+import com.barbercut.rating.service.RatingStatsService;
+import com.barbercut.rating.service.ReviewSearchIndex;
 import com.barbercut.reservation.model.Reservation;
 import com.barbercut.reservation.model.ReservationStatus;
 import com.barbercut.reservation.repository.ReservationRepository;
 import com.barbercut.notification.service.NotificationService;
+import com.barbercut.user.service.BarberDirectory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.DoubleSummaryStatistics;
 import java.util.List;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/ratings")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = RatingController.NEXT_CURSOR_HEADER)
 public class RatingController {
 
     @Autowired
@@ -29,11 +34,29 @@ public class RatingController {
     private ReservationRepository reservationRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private BarberDirectory barberDirectory;
+
+    @Autowired
+    private UserLookupService userLookupService;
 
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private RatingStatsService ratingStatsService;
+
+    @Autowired
+    private BarberLeaderboard leaderboard;
+
+    @Autowired
+    private RatingFeedService ratingFeedService;
+
+    @Autowired
+    private ReviewSearchIndex reviewSearchIndex;
+
+    // Review feeds return a plain array; the cursor for the next page travels in this header
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     public static class CreateRatingRequest {
         public String barberId;
         public String clientId;
@@ -76,6 +99,9 @@ public class RatingController {
 
         Rating rating = new Rating(body.barberId, body.clientId, body.reservationId, body.rating, body.feedback);
         ratingRepository.save(rating);
+        ratingStatsService.record(rating);
+        leaderboard.record(rating);
+        reviewSearchIndex.index(rating);
         try {
             java.util.Map<String, Object> meta = new java.util.HashMap<>();
             meta.put("barberId", body.barberId);
@@ -96,34 +122,43 @@ public class RatingController {
 
     @GetMapping("/barber/{barberId}/average")
     public ResponseEntity<AverageResponse> getAverage(@PathVariable String barberId) {
-        List<Rating> list = ratingRepository.findByBarberId(barberId);
-        DoubleSummaryStatistics stats = list.stream().mapToDouble(Rating::getRating).summaryStatistics();
+        BarberRatingStats stats = ratingStatsService.get(barberId);
         AverageResponse out = new AverageResponse();
         out.barberId = barberId;
         out.count = stats.getCount();
-        out.average = stats.getCount() == 0 ? 0.0 : Math.round((stats.getAverage()) * 10.0) / 10.0; // 1 decimal
+        out.average = stats.getAverage(); // 1 decimal
         return new ResponseEntity<>(out, HttpStatus.OK);
     }
 
     @GetMapping("/barber/{barberId}")
-    public ResponseEntity<List<RatingView>> listForBarber(@PathVariable String barberId) {
-        List<Rating> list = ratingRepository.findByBarberId(barberId);
-        java.util.Map<String, String> clientNames = new java.util.HashMap<>();
+    public ResponseEntity<?> listForBarber(@PathVariable String barberId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        RatingFeedService.FeedPage page;
+        try {
+            page = ratingFeedService.forBarber(barberId, after, limit);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        List<Rating> list = page.ratings;
+        java.util.List<String> clientIds = new java.util.ArrayList<>();
+        for (Rating r : list) clientIds.add(r.getClientId());
+        java.util.Map<String, User> clients;
+        try {
+            clients = userLookupService.findByIds(clientIds);
+        } catch (Exception ignored) { clients = java.util.Collections.emptyMap(); }
+        BarberDirectory.Entry barber = barberDirectory.find(barberId);
         List<RatingView> out = new java.util.ArrayList<>();
         for (Rating r : list) {
-            String name = clientNames.get(r.getClientId());
-            if (name == null) {
-                try {
-                    java.util.Optional<User> u = userRepository.findById(r.getClientId());
-                    name = u.map(User::getUsername).orElse("Anonymous");
-                } catch (Exception ignored) { name = "Anonymous"; }
-                clientNames.put(r.getClientId(), name);
-            }
+            User client = r.getClientId() != null ? clients.get(r.getClientId()) : null;
+            String name = client != null && client.getUsername() != null ? client.getUsername() : "Anonymous";
             RatingView v = new RatingView();
             v.id = r.getId();
             v.barberId = r.getBarberId();
             v.clientId = r.getClientId();
             v.clientName = name;
+            v.barberName = barber != null ? barber.username : null;
+            v.barberAvatarUrl = barber != null ? barber.avatarUrl : null;
             v.reservationId = r.getReservationId();
             v.rating = r.getRating();
             v.feedback = r.getFeedback();
@@ -131,9 +166,14 @@ public class RatingController {
             v.createdAt = r.getCreatedAt();
             out.add(v);
         }
-        // Sort most recent first
-        out.sort((a,b) -> java.util.Comparator.<java.time.Instant>naturalOrder().reversed().compare(a.createdAt, b.createdAt));
-        return new ResponseEntity<>(out, HttpStatus.OK);
+        // Already most recent first
+        return feedResponse(out, page.nextCursor);
+    }
+
+    private ResponseEntity<?> feedResponse(List<RatingView> views, String nextCursor) {
+        org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
+        if (nextCursor != null) headers.set(NEXT_CURSOR_HEADER, nextCursor);
+        return new ResponseEntity<>(views, headers, HttpStatus.OK);
     }
 
     public static class RatingView {
@@ -160,31 +200,31 @@ public class RatingController {
     }
 
     @GetMapping("/client/{clientId}")
-    public ResponseEntity<List<RatingView>> listForClient(@PathVariable String clientId) {
-        List<Rating> list = ratingRepository.findByClientId(clientId);
-        java.util.Map<String, String> barberNames = new java.util.HashMap<>();
-        java.util.Map<String, String> barberAvatars = new java.util.HashMap<>();
+    public ResponseEntity<?> listForClient(@PathVariable String clientId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        RatingFeedService.FeedPage page;
+        try {
+            page = ratingFeedService.forClient(clientId, after, limit);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        List<Rating> list = page.ratings;
+        java.util.List<String> barberIds = new java.util.ArrayList<>();
+        for (Rating r : list) barberIds.add(r.getBarberId());
+        java.util.Map<String, BarberDirectory.Entry> barbers;
+        try {
+            barbers = barberDirectory.findAll(barberIds);
+        } catch (Exception ignored) { barbers = java.util.Collections.emptyMap(); }
         List<RatingView> out = new java.util.ArrayList<>();
         for (Rating r : list) {
-            String name = barberNames.get(r.getBarberId());
-            if (name == null) {
-                try {
-                    // Find barber by barberId (which might be stored in user.barberId field)
-                    List<User> users = userRepository.findAll();
-                    java.util.Optional<User> match = users.stream()
-                        .filter(u -> r.getBarberId().equals(u.getBarberId()))
-                        .findFirst();
-                    name = match.map(User::getUsername).orElse("Barber");
-                    String avatar = match.map(User::getAvatarUrl).orElse(null);
-                    barberAvatars.put(r.getBarberId(), avatar);
-                } catch (Exception ignored) { name = "Barber"; }
-                barberNames.put(r.getBarberId(), name);
-            }
+            BarberDirectory.Entry barber = r.getBarberId() != null ? barbers.get(r.getBarberId()) : null;
+            String name = barber != null && barber.username != null ? barber.username : "Barber";
             RatingView v = new RatingView();
             v.id = r.getId();
             v.barberId = r.getBarberId();
             v.barberName = name;
-            v.barberAvatarUrl = barberAvatars.getOrDefault(r.getBarberId(), null);
+            v.barberAvatarUrl = barber != null ? barber.avatarUrl : null;
             v.clientId = r.getClientId();
             v.reservationId = r.getReservationId();
             v.rating = r.getRating();
@@ -193,8 +233,63 @@ public class RatingController {
             v.createdAt = r.getCreatedAt();
             out.add(v);
         }
-        // Sort most recent first
-        out.sort((a,b) -> java.util.Comparator.<java.time.Instant>naturalOrder().reversed().compare(a.createdAt, b.createdAt));
+        // Already most recent first
+        return feedResponse(out, page.nextCursor);
+    }
+
+    public static class SearchResult {
+        public double score;
+        public RatingView review;
+    }
+
+    /**
+     * Full-text search over review feedback and barber replies, best match first.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam("q") String q,
+            @RequestParam(required = false) String barberId,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (q == null || q.isBlank()) {
+            return new ResponseEntity<>("Missing query", HttpStatus.BAD_REQUEST);
+        }
+        List<ReviewSearchIndex.Hit> hits = reviewSearchIndex.search(q, barberId, limit);
+        java.util.List<String> ids = new java.util.ArrayList<>();
+        for (ReviewSearchIndex.Hit h : hits) ids.add(h.ratingId);
+        java.util.Map<String, Rating> ratings = new java.util.HashMap<>();
+        for (Rating r : ratingRepository.findAllById(ids)) ratings.put(r.getId(), r);
+
+        java.util.List<String> clientIds = new java.util.ArrayList<>();
+        java.util.List<String> barberIds = new java.util.ArrayList<>();
+        for (Rating r : ratings.values()) {
+            clientIds.add(r.getClientId());
+            barberIds.add(r.getBarberId());
+        }
+        java.util.Map<String, User> clients = userLookupService.findByIds(clientIds);
+        java.util.Map<String, BarberDirectory.Entry> barbers = barberDirectory.findAll(barberIds);
+
+        List<SearchResult> out = new java.util.ArrayList<>();
+        for (ReviewSearchIndex.Hit h : hits) {
+            Rating r = ratings.get(h.ratingId);
+            if (r == null) continue; // deleted since it was indexed
+            User client = r.getClientId() != null ? clients.get(r.getClientId()) : null;
+            BarberDirectory.Entry barber = r.getBarberId() != null ? barbers.get(r.getBarberId()) : null;
+            RatingView v = new RatingView();
+            v.id = r.getId();
+            v.barberId = r.getBarberId();
+            v.clientId = r.getClientId();
+            v.clientName = client != null && client.getUsername() != null ? client.getUsername() : "Anonymous";
+            v.barberName = barber != null ? barber.username : null;
+            v.barberAvatarUrl = barber != null ? barber.avatarUrl : null;
+            v.reservationId = r.getReservationId();
+            v.rating = r.getRating();
+            v.feedback = r.getFeedback();
+            v.reply = r.getReply();
+            v.createdAt = r.getCreatedAt();
+            SearchResult result = new SearchResult();
+            result.score = h.score;
+            result.review = v;
+            out.add(result);
+        }
         return new ResponseEntity<>(out, HttpStatus.OK);
     }
 
@@ -212,6 +307,7 @@ public class RatingController {
         // Note: In production, verify the requesting user is the barber for this rating
         rating.setReply(body.reply);
         ratingRepository.save(rating);
+        reviewSearchIndex.index(rating);
         return new ResponseEntity<>(rating, HttpStatus.OK);
     }
 }
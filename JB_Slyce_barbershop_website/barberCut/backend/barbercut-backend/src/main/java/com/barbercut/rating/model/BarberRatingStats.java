@@ -0,0 +1,57 @@
+package com.barbercut.rating.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running rating totals for one barber, maintained with $inc whenever a rating is saved.
+ */
+@Document(collection = "barber_rating_stats")
+public class BarberRatingStats {
+
+    @Id
+    private String barberId;
+
+    private double sum;
+    private long count;
+    private Map<String, Long> histogram = new HashMap<>(); // "1".."5" -> number of ratings rounded to that star
+
+    private Instant updatedAt;
+    // Bumped by every write, so the repair job can tell whether a rating landed while it was counting
+    private long version;
+
+    public BarberRatingStats() {}
+
+    public BarberRatingStats(String barberId) {
+        this.barberId = barberId;
+    }
+
+    /** Average rounded to one decimal, 0.0 when there are no ratings. */
+    public double getAverage() {
+        return count == 0 ? 0.0 : Math.round((sum / count) * 10.0) / 10.0;
+    }
+
+    public String getBarberId() { return barberId; }
+    public void setBarberId(String barberId) { this.barberId = barberId; }
+
+    public double getSum() { return sum; }
+    public void setSum(double sum) { this.sum = sum; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public Map<String, Long> getHistogram() { return histogram; }
+    public void setHistogram(Map<String, Long> histogram) { this.histogram = histogram; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+
+    @JsonIgnore
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
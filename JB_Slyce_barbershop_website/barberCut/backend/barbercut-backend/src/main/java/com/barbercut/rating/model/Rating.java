@@ -2,12 +2,18 @@ package com.barbercut.rating.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 
 @Document(collection = "ratings")
-@CompoundIndex(name = "unique_rating_per_reservation", def = "{'reservationId': 1, 'clientId': 1}", unique = true)
+@CompoundIndexes({
+    @CompoundIndex(name = "unique_rating_per_reservation", def = "{'reservationId': 1, 'clientId': 1}", unique = true),
+    // Newest-first review feeds, keyset-paged on (createdAt, _id)
+    @CompoundIndex(name = "barber_created_idx", def = "{'barberId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "client_created_idx", def = "{'clientId': 1, 'createdAt': -1, '_id': -1}")
+})
 public class Rating {
 
     @Id
@@ -0,0 +1,9 @@
+package com.barbercut.rating.repository;
+
+import com.barbercut.rating.model.BarberRatingStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BarberRatingStatsRepository extends MongoRepository<BarberRatingStats, String> {
+}
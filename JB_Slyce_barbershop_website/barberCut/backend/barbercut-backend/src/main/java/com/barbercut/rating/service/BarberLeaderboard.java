@@ -0,0 +1,170 @@
+package com.barbercut.rating.service;
+
+import com.barbercut.rating.model.Rating;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Ranks barbers by a Bayesian-smoothed, exponentially time-decayed rating score.
+ *
+ * Each barber keeps a decayed rating sum and weight; older ratings count for less with the
+ * configured half-life. The score shrinks towards the global mean by a fixed prior weight, so
+ * a single 5-star review cannot outrank hundreds of slightly lower ones:
+ *
+ *   score = (priorWeight * globalMean + decayedSum) / (priorWeight + decayedWeight)
+ *
+ * Scores live in a sorted set updated on every new rating and re-scored periodically as the
+ * weights decay, so reading the top k is a walk over the first k entries.
+ */
+@Service
+public class BarberLeaderboard {
+
+    public static final int MAX_K = 100;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${barbercut.leaderboard.half-life-days:90}")
+    private double halfLifeDays;
+
+    @Value("${barbercut.leaderboard.prior-weight:10}")
+    private double priorWeight;
+
+    public static class Entry {
+        public final String barberId;
+        public final double score;
+        public final double decayedAverage;
+        public final long ratingCount;
+
+        Entry(String barberId, double score, double decayedAverage, long ratingCount) {
+            this.barberId = barberId;
+            this.score = score;
+            this.decayedAverage = decayedAverage;
+            this.ratingCount = ratingCount;
+        }
+    }
+
+    private static class Totals {
+        double sum;    // decayed sum of ratings as of asOf
+        double weight; // decayed number of ratings as of asOf
+        long count;
+        Instant asOf;
+    }
+
+    private static final Comparator<Entry> RANKING = Comparator.<Entry>comparingDouble(e -> -e.score)
+            .thenComparing(e -> e.barberId);
+
+    private final Map<String, Totals> totals = new HashMap<>();
+    private final Map<String, Entry> current = new HashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING);
+    private double globalSum;
+    private long globalCount;
+
+    /**
+     * Loads every rating once at startup; afterwards the leaderboard is maintained incrementally.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        totals.clear();
+        globalSum = 0;
+        globalCount = 0;
+        Query q = new Query();
+        q.fields().include("barberId").include("rating").include("createdAt");
+        try (Stream<Rating> ratings = mongoTemplate.stream(q, Rating.class)) {
+            ratings.forEach(this::add);
+        }
+        rescore();
+    }
+
+    /**
+     * Adds a freshly saved rating and re-ranks its barber.
+     */
+    public synchronized void record(Rating rating) {
+        if (!add(rating)) return;
+        // The global mean moved too, but only slightly; every barber catches up on the next rescore
+        rank(rating.getBarberId(), Instant.now());
+    }
+
+    /** Decay moves every score, so all barbers are re-ranked periodically. */
+    @Scheduled(fixedDelayString = "${barbercut.leaderboard.rescore-ms:3600000}")
+    public synchronized void rescore() {
+        Instant now = Instant.now();
+        for (String barberId : totals.keySet()) rank(barberId, now);
+    }
+
+    /** The best k barbers, best first. */
+    public List<Entry> top(int k) {
+        List<Entry> out = new ArrayList<>(Math.min(k, MAX_K));
+        Iterator<Entry> it = ranking.iterator();
+        while (it.hasNext() && out.size() < Math.min(k, MAX_K)) out.add(it.next());
+        return out;
+    }
+
+    private boolean add(Rating r) {
+        if (r.getBarberId() == null) return false;
+        Instant at = r.getCreatedAt() != null ? r.getCreatedAt() : Instant.now();
+        Totals t = totals.computeIfAbsent(r.getBarberId(), k -> new Totals());
+        double weight = 1.0;
+        if (t.asOf == null) {
+            t.asOf = at;
+        } else if (at.isAfter(t.asOf)) {
+            decay(t, at);
+        } else {
+            // Older than the barber's latest rating: decay the rating itself to the barber's reference time
+            weight = factor(Duration.between(at, t.asOf));
+        }
+        t.sum += r.getRating() * weight;
+        t.weight += weight;
+        t.count++;
+        globalSum += r.getRating();
+        globalCount++;
+        return true;
+    }
+
+    private void rank(String barberId, Instant now) {
+        Totals t = totals.get(barberId);
+        if (t == null) return;
+        decay(t, now);
+        double mean = globalCount == 0 ? 0.0 : globalSum / globalCount;
+        double score = (priorWeight * mean + t.sum) / (priorWeight + t.weight);
+        double average = t.weight == 0 ? 0.0 : t.sum / t.weight;
+        Entry next = new Entry(barberId, round(score), round(average), t.count);
+        Entry previous = current.put(barberId, next);
+        if (previous != null) ranking.remove(previous);
+        ranking.add(next);
+    }
+
+    private void decay(Totals t, Instant to) {
+        if (!to.isAfter(t.asOf)) return;
+        double f = factor(Duration.between(t.asOf, to));
+        t.sum *= f;
+        t.weight *= f;
+        t.asOf = to;
+    }
+
+    private double factor(Duration age) {
+        double days = age.toMillis() / 86_400_000.0;
+        return Math.pow(0.5, days / halfLifeDays);
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 1000.0) / 1000.0;
+    }
+}
@@ -0,0 +1,107 @@
+package com.barbercut.rating.service;
+
+import com.barbercut.rating.model.Rating;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Newest-first review feeds for a barber or a client, paged with an opaque keyset cursor over
+ * (createdAt, id). Each page is one indexed range read, whatever the total number of reviews.
+ */
+@Service
+public class RatingFeedService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public static class FeedPage {
+        public final List<Rating> ratings;
+        public final String nextCursor;
+
+        FeedPage(List<Rating> ratings, String nextCursor) {
+            this.ratings = ratings;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    public FeedPage forBarber(String barberId, String after, Integer limit) {
+        return page("barberId", barberId, after, limit);
+    }
+
+    public FeedPage forClient(String clientId, String after, Integer limit) {
+        return page("clientId", clientId, after, limit);
+    }
+
+    /**
+     * Without a limit the whole feed is returned in one page.
+     *
+     * @throws IllegalArgumentException if the cursor is not one this service produced
+     */
+    private FeedPage page(String owner, String ownerId, String after, Integer limit) {
+        Criteria c = where(owner).is(ownerId);
+        if (after != null && !after.isEmpty()) {
+            Position p = Position.decode(after);
+            c = where(owner).is(ownerId).orOperator(
+                    where("createdAt").lt(p.createdAt),
+                    where("createdAt").is(p.createdAt).and("id").lt(p.id));
+        }
+        Query q = new Query(c).with(Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id")));
+        // Only the fields the review views render
+        q.fields().include("barberId", "clientId", "reservationId", "rating", "feedback", "reply", "createdAt");
+        int size = 0;
+        if (limit != null) {
+            if (limit <= 0) throw new IllegalArgumentException("limit must be positive");
+            size = Math.min(limit, MAX_PAGE_SIZE);
+            q.limit(size + 1);
+        }
+
+        List<Rating> ratings = new ArrayList<>(mongoTemplate.find(q, Rating.class));
+        String nextCursor = null;
+        if (limit != null && ratings.size() > size) {
+            ratings = new ArrayList<>(ratings.subList(0, size));
+            Rating last = ratings.get(size - 1);
+            if (last.getCreatedAt() != null) nextCursor = new Position(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new FeedPage(ratings, nextCursor);
+    }
+
+    private static class Position {
+        final Instant createdAt;
+        final String id;
+
+        Position(Instant createdAt, String id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        String encode() {
+            String raw = createdAt.toEpochMilli() + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Position decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split(":", 2);
+                if (parts.length != 2 || parts[1].isEmpty()) throw new IllegalArgumentException("Invalid cursor");
+                return new Position(Instant.ofEpochMilli(Long.parseLong(parts[0])), parts[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.barbercut.rating.service;
+
+import com.barbercut.rating.model.BarberRatingStats;
+import com.barbercut.rating.model.Rating;
+import com.barbercut.rating.repository.BarberRatingStatsRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Reads and maintains the per-barber barber_rating_stats documents.
+ *
+ * Saving a rating increments sum, count and one histogram bucket in a single upsert. A nightly
+ * repair job recomputes every document from the ratings collection; it also runs at startup
+ * when the stats collection is still empty.
+ *
+ * Every write bumps the document's version. The repair reads the versions before counting and
+ * only replaces a document whose version is unchanged, so an increment that lands while it
+ * counts is never overwritten; those barbers are recounted on their own until a write sticks.
+ */
+@Service
+public class RatingStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingStatsService.class);
+    private static final int DUPLICATE_KEY = 11000;
+    // Recount attempts for one barber whose ratings keep changing under the repair
+    private static final int MAX_RECOUNTS = 5;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private BarberRatingStatsRepository statsRepository;
+
+    /**
+     * Adds a freshly saved rating to its barber's totals.
+     */
+    public void record(Rating rating) {
+        if (rating.getBarberId() == null) return;
+        Update update = new Update()
+                .inc("sum", rating.getRating())
+                .inc("count", 1)
+                .inc("histogram." + bucket(rating.getRating()), 1)
+                .set("updatedAt", Instant.now())
+                .inc("version", 1);
+        mongoTemplate.upsert(query(where("barberId").is(rating.getBarberId())), update, BarberRatingStats.class);
+    }
+
+    /** Stats for one barber; an empty document when the barber has no ratings yet. */
+    public BarberRatingStats get(String barberId) {
+        return statsRepository.findById(barberId).orElseGet(() -> new BarberRatingStats(barberId));
+    }
+
+    /** Stats keyed by barber id, fetched with one query; barbers without ratings are absent. */
+    public Map<String, BarberRatingStats> findByBarberIds(Collection<String> barberIds) {
+        Map<String, BarberRatingStats> out = new HashMap<>();
+        for (BarberRatingStats s : statsRepository.findAllById(new HashSet<>(barberIds))) {
+            out.put(s.getBarberId(), s);
+        }
+        return out;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialise() {
+        if (statsRepository.count() == 0) rebuild();
+    }
+
+    @Scheduled(cron = "${barbercut.rating-stats.repair-cron:0 30 3 * * *}")
+    public void repair() {
+        rebuild();
+    }
+
+    /**
+     * Recomputes every barber's totals from the ratings collection with one aggregation and
+     * replaces the stored documents that did not change meanwhile; returns the number of barbers
+     * with ratings.
+     */
+    public int rebuild() {
+        // Versions first: an increment after this read changes the version and the write below misses
+        Query current = new Query();
+        current.fields().include("version");
+        Map<String, Long> versions = new HashMap<>();
+        for (BarberRatingStats s : mongoTemplate.find(current, BarberRatingStats.class)) {
+            versions.put(s.getBarberId(), s.getVersion());
+        }
+
+        List<BarberRatingStats> rebuilt = count(where("barberId").ne(null));
+        Set<String> raced = new HashSet<>();
+        if (!rebuilt.isEmpty()) {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BarberRatingStats.class);
+            for (BarberRatingStats s : rebuilt) ops.upsert(unchangedSince(s.getBarberId(), versions.get(s.getBarberId())), replacement(s));
+            // A changed document does not match, so its upsert collides with the existing _id
+            List<BulkWriteError> errors = List.of();
+            try {
+                ops.execute();
+            } catch (BulkOperationException e) {
+                errors = e.getErrors();
+            } catch (DuplicateKeyException e) {
+                if (!(e.getCause() instanceof MongoBulkWriteException bulk)) throw e;
+                errors = bulk.getWriteErrors();
+            }
+            for (BulkWriteError error : errors) {
+                if (error.getCode() != DUPLICATE_KEY) throw new IllegalStateException("Rating stats repair failed: " + error.getMessage());
+                raced.add(rebuilt.get(error.getIndex()).getBarberId());
+            }
+        }
+
+        // Barbers whose ratings have all been removed, unless one arrived meanwhile
+        Set<String> seen = new HashSet<>();
+        for (BarberRatingStats s : rebuilt) seen.add(s.getBarberId());
+        for (Map.Entry<String, Long> e : versions.entrySet()) {
+            if (seen.contains(e.getKey())) continue;
+            if (mongoTemplate.remove(unchangedSince(e.getKey(), e.getValue()), BarberRatingStats.class).getDeletedCount() == 0) {
+                raced.add(e.getKey());
+            }
+        }
+
+        for (String barberId : raced) recount(barberId);
+        return rebuilt.size();
+    }
+
+    /** Recounts one barber, retrying while ratings keep landing between the read and the write. */
+    private void recount(String barberId) {
+        for (int attempt = 0; attempt < MAX_RECOUNTS; attempt++) {
+            Query current = query(where("barberId").is(barberId));
+            current.fields().include("version");
+            BarberRatingStats stored = mongoTemplate.findOne(current, BarberRatingStats.class);
+            Long version = stored != null ? stored.getVersion() : null;
+            List<BarberRatingStats> counted = count(where("barberId").is(barberId));
+            try {
+                if (!counted.isEmpty()) {
+                    mongoTemplate.upsert(unchangedSince(barberId, version), replacement(counted.get(0)), BarberRatingStats.class);
+                    return;
+                }
+                if (stored == null || mongoTemplate.remove(unchangedSince(barberId, version), BarberRatingStats.class).getDeletedCount() > 0) {
+                    return;
+                }
+            } catch (DuplicateKeyException e) {
+                // Changed since the read; count again
+            }
+        }
+        log.warn("Rating stats for barber {} kept changing during repair; left for the next run", barberId);
+    }
+
+    /** The barber's document if it still has the version read earlier (null: did not exist then). */
+    private static Query unchangedSince(String barberId, Long version) {
+        Criteria unchanged;
+        if (version == null) {
+            unchanged = where("version").exists(false);
+        } else if (version == 0) {
+            // Documents written before versions existed carry none
+            unchanged = new Criteria().orOperator(where("version").exists(false), where("version").is(0L));
+        } else {
+            unchanged = where("version").is(version);
+        }
+        return query(where("barberId").is(barberId).andOperator(unchanged));
+    }
+
+    private static Update replacement(BarberRatingStats s) {
+        return new Update()
+                .set("sum", s.getSum())
+                .set("count", s.getCount())
+                .set("histogram", s.getHistogram())
+                .set("updatedAt", s.getUpdatedAt())
+                .inc("version", 1);
+    }
+
+    // Totals per barber for the ratings matching `match`, with one aggregation
+    private List<BarberRatingStats> count(Criteria match) {
+        Document histogram = new Document();
+        for (int star = 1; star <= 5; star++) {
+            histogram.append(String.valueOf(star), new Document("$sum", new Document("$cond",
+                    List.of(new Document("$eq", List.of(bucketExpression(), star)), 1, 0))));
+        }
+        Document group = new Document("_id", "$barberId")
+                .append("sum", new Document("$sum", "$rating"))
+                .append("count", new Document("$sum", 1));
+        for (Map.Entry<String, Object> e : histogram.entrySet()) group.append("h" + e.getKey(), e.getValue());
+
+        List<AggregationOperation> ops = new ArrayList<>();
+        ops.add(Aggregation.match(match));
+        ops.add(ctx -> new Document("$group", group));
+        TypedAggregation<Rating> aggregation = Aggregation.newAggregation(Rating.class, ops);
+
+        Instant now = Instant.now();
+        List<BarberRatingStats> out = new ArrayList<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, Document.class).getMappedResults()) {
+            BarberRatingStats s = new BarberRatingStats(row.getString("_id"));
+            s.setSum(((Number) row.get("sum")).doubleValue());
+            s.setCount(((Number) row.get("count")).longValue());
+            Map<String, Long> h = new HashMap<>();
+            for (int star = 1; star <= 5; star++) {
+                long n = ((Number) row.get("h" + star)).longValue();
+                if (n > 0) h.put(String.valueOf(star), n);
+            }
+            s.setHistogram(h);
+            s.setUpdatedAt(now);
+            out.add(s);
+        }
+        return out;
+    }
+
+    // Same rounding as bucketExpression(): nearest star, clamped to 1..5
+    static int bucket(double rating) {
+        return (int) Math.max(1, Math.min(5, Math.round(rating)));
+    }
+
+    private static Document bucketExpression() {
+        Document rounded = new Document("$floor", new Document("$add", List.of("$rating", 0.5)));
+        return new Document("$max", List.of(1, new Document("$min", List.of(5, rounded))));
+    }
+}
@@ -0,0 +1,312 @@
+package com.barbercut.rating.service;
+
+import com.barbercut.rating.model.Rating;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-process inverted index over review feedback and barber replies, scored with BM25.
+ *
+ * Documents get dense int numbers and each term keeps parallel growable arrays of document
+ * numbers and term frequencies. Re-indexing a review (a new reply) tombstones its old number
+ * and appends a new one, so updates never rewrite posting lists. The index is rebuilt from
+ * Mongo at startup, which also drops the tombstones.
+ *
+ * Scoring accumulates into a primitive per-document array taken from a small pool, so a query
+ * matching most of a million reviews neither boxes a score per posting nor allocates a large
+ * array each time; barbers are compared by a dense int code rather than by string.
+ */
+@Service
+public class ReviewSearchIndex {
+
+    public static final int MAX_RESULTS = 100;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Bounds of the per-query tf x length normalisation table
+    private static final int NORM_TF = 4;
+    private static final int NORM_LENGTH = 256;
+    // Score buffers kept for reuse; more concurrent queries than this allocate their own
+    private static final int SCRATCH_POOL = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "he", "her", "his", "i", "in",
+            "is", "it", "me", "my", "of", "on", "or", "she", "so", "that", "the", "they", "this", "to",
+            "very", "was", "we", "were", "with", "you");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public static class Hit {
+        public final String ratingId;
+        public final double score;
+
+        Hit(String ratingId, double score) {
+            this.ratingId = ratingId;
+            this.score = score;
+        }
+    }
+
+    private static class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    /** Per-query buffers: scores by doc number (all zero between uses) and the docs that scored. */
+    private static class Scratch {
+        double[] scores = new double[0];
+        int[] touched = new int[0];
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BlockingQueue<Scratch> scratchPool = new ArrayBlockingQueue<>(SCRATCH_POOL);
+    private Map<String, Postings> postings = new HashMap<>();
+    private List<String> ratingIds = new ArrayList<>();   // doc number -> rating id
+    private int[] barbers = new int[1024];                // doc number -> barber code
+    private Map<String, Integer> barberCodes = new HashMap<>();
+    private int[] lengths = new int[1024];                // doc number -> token count
+    private BitSet deleted = new BitSet();
+    private Map<String, Integer> docByRating = new HashMap<>();
+    private long totalLength;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Query q = new Query();
+        q.fields().include("barberId", "feedback", "reply");
+        lock.writeLock().lock();
+        try {
+            postings = new HashMap<>();
+            ratingIds = new ArrayList<>();
+            barbers = new int[1024];
+            barberCodes = new HashMap<>();
+            lengths = new int[1024];
+            deleted = new BitSet();
+            docByRating = new HashMap<>();
+            totalLength = 0;
+            try (Stream<Rating> ratings = mongoTemplate.stream(q, Rating.class)) {
+                ratings.forEach(this::addLocked);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Indexes a new review, or re-indexes one whose feedback or reply changed. */
+    public void index(Rating rating) {
+        if (rating.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            addLocked(rating);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The best matching reviews for a free-text query, optionally restricted to one barber.
+     */
+    public List<Hit> search(String text, String barberId, int limit) {
+        Map<String, Integer> terms = termFrequencies(text);
+        if (terms.isEmpty()) return Collections.emptyList();
+        int size = Math.max(1, Math.min(limit, MAX_RESULTS));
+        lock.readLock().lock();
+        try {
+            int live = ratingIds.size() - deleted.cardinality();
+            if (live == 0) return Collections.emptyList();
+            double avgLength = (double) totalLength / live;
+            // BM25 length normalisation K1 * (1 - B + B * length / avgLength) as a + b * length
+            double a = K1 * (1 - B);
+            double b = K1 * B / avgLength;
+            int barber = -1;
+            if (barberId != null) {
+                Integer code = barberCodes.get(barberId);
+                if (code == null) return Collections.emptyList();
+                barber = code;
+            }
+            // tf / (tf + a + b * length) for the common small tf and length, so the inner loop
+            // mostly looks it up instead of dividing
+            double[] norms = new double[NORM_TF * NORM_LENGTH];
+            for (int tf = 1; tf <= NORM_TF; tf++) {
+                for (int len = 0; len < NORM_LENGTH; len++) norms[(tf - 1) * NORM_LENGTH + len] = tf / (tf + a + b * len);
+            }
+            Scratch scratch = takeScratch(ratingIds.size());
+            double[] scores = scratch.scores;
+            int[] touched = scratch.touched;
+            int count = 0;
+            try {
+                for (String term : terms.keySet()) {
+                    Postings p = postings.get(term);
+                    if (p == null) continue;
+                    // Tombstones inflate p.size; capping at live keeps idf, and so every score, positive
+                    int df = Math.min(p.size, live);
+                    double idf = Math.log(1 + (live - df + 0.5) / (df + 0.5));
+                    int[] docs = p.docs;
+                    int[] freqs = p.freqs;
+                    double weight = idf * (K1 + 1);
+                    for (int i = 0; i < p.size; i++) {
+                        int doc = docs[i];
+                        if (barber >= 0 && barbers[doc] != barber) continue;
+                        if (deleted.get(doc)) continue;
+                        int tf = freqs[i];
+                        int len = lengths[doc];
+                        double norm = tf <= NORM_TF && len < NORM_LENGTH
+                                ? norms[(tf - 1) * NORM_LENGTH + len]
+                                : tf / (tf + a + b * len);
+                        if (scores[doc] == 0) touched[count++] = doc;
+                        scores[doc] += weight * norm;
+                    }
+                }
+                // Keep the best `size` in a min-heap of doc numbers ordered by score
+                int[] heap = new int[size];
+                int heapSize = 0;
+                for (int t = 0; t < count; t++) {
+                    int doc = touched[t];
+                    if (heapSize < size) {
+                        heap[heapSize] = doc;
+                        siftUp(heap, heapSize++, scores);
+                    } else if (scores[doc] > scores[heap[0]]) {
+                        heap[0] = doc;
+                        siftDown(heap, heapSize, scores);
+                    }
+                }
+                List<Hit> out = new ArrayList<>(heapSize);
+                while (heapSize > 0) {
+                    int doc = heap[0];
+                    heap[0] = heap[--heapSize];
+                    siftDown(heap, heapSize, scores);
+                    out.add(new Hit(ratingIds.get(doc), Math.round(scores[doc] * 1000.0) / 1000.0));
+                }
+                Collections.reverse(out);
+                return out;
+            } finally {
+                for (int t = 0; t < count; t++) scores[touched[t]] = 0;
+                scratchPool.offer(scratch);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A pooled buffer large enough for `docs` documents, or a fresh one when all are in use
+    private Scratch takeScratch(int docs) {
+        Scratch s = scratchPool.poll();
+        if (s == null) s = new Scratch();
+        if (s.scores.length < docs) {
+            // Headroom so a growing index does not reallocate on every query
+            int capacity = docs + (docs >> 3) + 16;
+            s.scores = new double[capacity];
+            s.touched = new int[capacity];
+        }
+        return s;
+    }
+
+    private static void siftUp(int[] heap, int i, double[] scores) {
+        int doc = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[heap[parent]] <= scores[doc]) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = doc;
+    }
+
+    private static void siftDown(int[] heap, int size, double[] scores) {
+        if (size == 0) return;
+        int doc = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && scores[heap[child + 1]] < scores[heap[child]]) child++;
+            if (scores[doc] <= scores[heap[child]]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = doc;
+    }
+
+    private void addLocked(Rating r) {
+        Integer previous = docByRating.get(r.getId());
+        if (previous != null) {
+            deleted.set(previous);
+            totalLength -= lengths[previous];
+        }
+        String text = (r.getFeedback() != null ? r.getFeedback() : "") + " " + (r.getReply() != null ? r.getReply() : "");
+        Map<String, Integer> terms = termFrequencies(text);
+        int doc = ratingIds.size();
+        ratingIds.add(r.getId());
+        if (doc == lengths.length) {
+            lengths = Arrays.copyOf(lengths, doc * 2);
+            barbers = Arrays.copyOf(barbers, doc * 2);
+        }
+        Map<String, Integer> codes = barberCodes;
+        barbers[doc] = r.getBarberId() != null ? codes.computeIfAbsent(r.getBarberId(), k -> codes.size()) : -1;
+        int length = 0;
+        for (Map.Entry<String, Integer> e : terms.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), k -> new Postings()).add(doc, e.getValue());
+            length += e.getValue();
+        }
+        lengths[doc] = length;
+        totalLength += length;
+        docByRating.put(r.getId(), doc);
+    }
+
+    static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> out = new LinkedHashMap<>();
+        if (text == null) return out;
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() < 2 || STOP_WORDS.contains(token)) continue;
+            out.merge(stem(token), 1, Integer::sum);
+        }
+        return out;
+    }
+
+    /**
+     * Light suffix-stripping stemmer (plural, -ing, -ed, -ly, -ness, -ful) so "fades", "fading"
+     * and "faded" meet at "fad". Applied identically to documents and queries.
+     */
+    static String stem(String w) {
+        if (w.length() <= 3) return w;
+        if (w.endsWith("ies") && w.length() > 4) return w.substring(0, w.length() - 3) + "y";
+        if (w.endsWith("ness") && w.length() > 6) w = w.substring(0, w.length() - 4);
+        else if (w.endsWith("ful") && w.length() > 5) w = w.substring(0, w.length() - 3);
+        else if (w.endsWith("ing") && w.length() > 5) w = w.substring(0, w.length() - 3);
+        else if (w.endsWith("ed") && w.length() > 4) w = w.substring(0, w.length() - 2);
+        else if (w.endsWith("ly") && w.length() > 4) w = w.substring(0, w.length() - 2);
+        else if (w.endsWith("es") && w.length() > 4) w = w.substring(0, w.length() - 2);
+        else if (w.endsWith("s") && !w.endsWith("ss")) w = w.substring(0, w.length() - 1);
+        // fade/fading/faded: drop a trailing 'e' so all forms share one stem
+        if (w.endsWith("e") && w.length() > 3) w = w.substring(0, w.length() - 1);
+        return w;
+    }
+}
@@ -3,9 +3,11 @@ package com.barbercut.reservation;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.barbercut")
 @EnableMongoRepositories(basePackages = "com.barbercut")
+@EnableScheduling
 public class BarbercutApplication {
 
     public static void main(String[] args) {
@@ -1,15 +1,18 @@
 package com.barbercut.reservation.controller;
 
 import com.barbercut.auth.model.User;
-import com.barbercut.auth.repository.UserRepository;
+import com.barbercut.auth.service.UserLookupService;
 import com.barbercut.notification.service.NotificationService;
 import com.barbercut.reservation.model.Reservation;
 import com.barbercut.reservation.model.ReservationStatus;
+import com.barbercut.reservation.service.ReservationHistoryService;
 import com.barbercut.reservation.service.ReservationService;
 import com.barbercut.reservation.service.SlotAlreadyBookedException;
 import com.barbercut.reservation.service.ReservationNotFoundException;
+import com.barbercut.reservation.service.ReservationClosedException;
 import com.barbercut.reservation.model.ReservationArchive;
 import com.barbercut.reservation.repository.ReservationArchiveRepository;
+import com.barbercut.user.service.BarberDirectory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -25,14 +28,18 @@ public class ReservationController {
     @Autowired
     private ReservationService reservationService;
     @Autowired
-    private UserRepository userRepository;
+    private UserLookupService userLookupService;
     @Autowired
     private ReservationArchiveRepository reservationArchiveRepository;
     @Autowired
     private NotificationService notificationService;
+    @Autowired
+    private ReservationHistoryService reservationHistoryService;
+    @Autowired
+    private BarberDirectory barberDirectory;
 
     // --- Mapping helpers and DTO ---
-    private ReservationView toView(Reservation r) {
+    private ReservationView toView(Reservation r, java.util.Map<String, User> users) {
         ReservationView v = new ReservationView();
         v.id = r.getId();
         v.barberId = r.getBarberId();
@@ -42,22 +49,44 @@ public class ReservationController {
         v.notes = r.getNotes();
         v.serviceName = r.getServiceName();
         v.serviceDurationMinutes = r.getServiceDurationMinutes();
-        try {
-            java.util.Optional<User> u = userRepository.findById(r.getClientId());
-            v.clientUsername = u.map(User::getUsername).orElse(null);
-        } catch (Exception ignored) {}
+        User u = r.getClientId() != null ? users.get(r.getClientId()) : null;
+        v.clientUsername = u != null ? u.getUsername() : null;
         return v;
     }
 
+    private ReservationView toView(Reservation r) {
+        ReservationView v = toView(r, userLookupService.findByIds(java.util.Collections.singletonList(r.getClientId())));
+        return withBarberNames(java.util.Collections.singletonList(v)).get(0);
+    }
+
     private java.util.List<ReservationView> toViews(java.util.List<Reservation> src) {
+        java.util.List<String> clientIds = new java.util.ArrayList<>();
+        for (Reservation r : src) clientIds.add(r.getClientId());
+        java.util.Map<String, User> users = userLookupService.findByIds(clientIds);
         java.util.List<ReservationView> out = new java.util.ArrayList<>();
-        for (Reservation r : src) out.add(toView(r));
-        return out;
+        for (Reservation r : src) out.add(toView(r, users));
+        return withBarberNames(out);
+    }
+
+    // Barber identity comes from the cached barber directory, one batched lookup per response
+    private java.util.List<ReservationView> withBarberNames(java.util.List<ReservationView> views) {
+        java.util.List<String> barberIds = new java.util.ArrayList<>();
+        for (ReservationView v : views) barberIds.add(v.barberId);
+        java.util.Map<String, BarberDirectory.Entry> barbers;
+        try {
+            barbers = barberDirectory.findAll(barberIds);
+        } catch (Exception ignored) { return views; }
+        for (ReservationView v : views) {
+            BarberDirectory.Entry b = v.barberId != null ? barbers.get(v.barberId) : null;
+            v.barberName = b != null ? b.displayName : null;
+        }
+        return views;
     }
 
     static class ReservationView {
         public String id;
         public String barberId;
+        public String barberName;
         public String clientId;
         public String clientUsername;
         public java.time.Instant slot;
@@ -67,7 +96,7 @@ public class ReservationController {
         public int serviceDurationMinutes;
     }
 
-    private ReservationView fromArchive(ReservationArchive a) {
+    private ReservationView fromArchive(ReservationArchive a, java.util.Map<String, User> users) {
         ReservationView v = new ReservationView();
         v.id = a.getId();
         v.barberId = a.getBarberId();
@@ -77,10 +106,8 @@ public class ReservationController {
         v.notes = a.getNotes();
         v.serviceName = a.getServiceName();
         v.serviceDurationMinutes = a.getServiceDurationMinutes();
-        try {
-            java.util.Optional<User> u = userRepository.findById(a.getClientId());
-            v.clientUsername = u.map(User::getUsername).orElse(null);
-        } catch (Exception ignored) {}
+        User u = a.getClientId() != null ? users.get(a.getClientId()) : null;
+        v.clientUsername = u != null ? u.getUsername() : null;
         return v;
     }
 
@@ -112,9 +139,9 @@ public class ReservationController {
     @GetMapping("/client/{clientId}")
     public ResponseEntity<List<ReservationView>> getClientReservations(@PathVariable String clientId) {
         List<Reservation> reservations = reservationService.getClientReservations(clientId);
-        // Auto-update statuses based on time
+        // Reflect time-based statuses the scheduler may not have written yet
         for (Reservation reservation : reservations) {
-            reservationService.autoUpdateStatus(reservation);
+            reservationService.applyEffectiveStatus(reservation);
         }
         return new ResponseEntity<>(toViews(reservations), HttpStatus.OK);
     }
@@ -128,9 +155,9 @@ public class ReservationController {
     @GetMapping("/barber/{barberId}/all")
     public ResponseEntity<List<ReservationView>> getAllReservationsForBarber(@PathVariable String barberId) {
         List<Reservation> reservations = reservationService.getAllReservationsForBarber(barberId);
-        // Auto-update statuses based on time
+        // Reflect time-based statuses the scheduler may not have written yet
         for (Reservation reservation : reservations) {
-            reservationService.autoUpdateStatus(reservation);
+            reservationService.applyEffectiveStatus(reservation);
         }
         return new ResponseEntity<>(toViews(reservations), HttpStatus.OK);
     }
@@ -138,17 +165,65 @@ public class ReservationController {
     @GetMapping("/barber/{barberId}/all-merged")
     public ResponseEntity<List<ReservationView>> getAllReservationsForBarberMerged(@PathVariable String barberId) {
         List<Reservation> active = reservationService.getAllReservationsForBarber(barberId);
-        // Auto-update statuses based on time
+        // Reflect time-based statuses the scheduler may not have written yet
         for (Reservation reservation : active) {
-            reservationService.autoUpdateStatus(reservation);
+            reservationService.applyEffectiveStatus(reservation);
         }
         List<ReservationArchive> archived = reservationArchiveRepository.findByBarberId(barberId);
+        java.util.List<String> clientIds = new java.util.ArrayList<>();
+        for (Reservation r : active) clientIds.add(r.getClientId());
+        for (ReservationArchive a : archived) clientIds.add(a.getClientId());
+        java.util.Map<String, User> users = userLookupService.findByIds(clientIds);
         java.util.List<ReservationView> out = new java.util.ArrayList<>();
-        out.addAll(toViews(active));
-        for (ReservationArchive a : archived) out.add(fromArchive(a));
+        java.util.Set<String> seen = new java.util.HashSet<>();
+        for (Reservation r : active) {
+            seen.add(r.getId());
+            out.add(toView(r, users));
+        }
+        // A closed reservation is briefly in both collections while the archiver moves it
+        for (ReservationArchive a : archived) {
+            if (!seen.contains(a.getOriginalReservationId())) out.add(fromArchive(a, users));
+        }
+        return new ResponseEntity<>(withBarberNames(out), HttpStatus.OK);
+    }
+
+    /**
+     * Keyset-paginated version of all-merged: newest slot first, with an opaque cursor for the next page.
+     */
+    @GetMapping("/barber/{barberId}/history")
+    public ResponseEntity<?> getReservationHistoryForBarber(@PathVariable String barberId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ReservationHistoryService.DEFAULT_PAGE_SIZE) int limit) {
+        ReservationHistoryService.HistoryPage page;
+        try {
+            page = reservationHistoryService.page(barberId, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        java.util.List<String> clientIds = new java.util.ArrayList<>();
+        for (ReservationHistoryService.HistoryEntry e : page.entries) {
+            clientIds.add(e.reservation != null ? e.reservation.getClientId() : e.archive.getClientId());
+        }
+        java.util.Map<String, User> users = userLookupService.findByIds(clientIds);
+        ReservationHistoryView out = new ReservationHistoryView();
+        out.items = new java.util.ArrayList<>();
+        for (ReservationHistoryService.HistoryEntry e : page.entries) {
+            if (e.reservation != null) {
+                out.items.add(toView(reservationService.applyEffectiveStatus(e.reservation), users));
+            } else {
+                out.items.add(fromArchive(e.archive, users));
+            }
+        }
+        withBarberNames(out.items);
+        out.nextCursor = page.nextCursor;
         return new ResponseEntity<>(out, HttpStatus.OK);
     }
 
+    static class ReservationHistoryView {
+        public java.util.List<ReservationView> items;
+        public String nextCursor; // null on the last page
+    }
+
     @PutMapping("/{id}/status")
     public ResponseEntity<?> updateReservationStatus(@PathVariable String id,
             @RequestBody ReservationStatusUpdateRequest request) {
@@ -174,6 +249,9 @@ public class ReservationController {
             return new ResponseEntity<>(toView(updatedReservation), HttpStatus.OK);
         } catch (ReservationNotFoundException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (ReservationClosedException e) {
+            // Nothing changed, so nothing is published
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
         }
     }
 
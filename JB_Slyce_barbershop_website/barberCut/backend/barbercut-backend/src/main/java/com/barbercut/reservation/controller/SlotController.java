@@ -1,10 +1,11 @@
 package com.barbercut.reservation.controller;
 
+import com.barbercut.reservation.model.ScheduleTemplate;
 import com.barbercut.reservation.model.Slot;
-import com.barbercut.reservation.model.Reservation;
-import com.barbercut.reservation.model.ReservationStatus;
 import com.barbercut.reservation.repository.SlotRepository;
-import com.barbercut.reservation.repository.ReservationRepository;
+import com.barbercut.reservation.service.ReservationService;
+import com.barbercut.reservation.service.SlotAvailabilityIndex;
+import com.barbercut.reservation.service.SlotGenerationService;
 import com.barbercut.notification.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -12,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 
@@ -23,9 +25,11 @@ public class SlotController {
     @Autowired
     private SlotRepository slotRepository;
     @Autowired
-    private ReservationRepository reservationRepository;
-    @Autowired
     private NotificationService notificationService;
+    @Autowired
+    private SlotAvailabilityIndex availabilityIndex;
+    @Autowired
+    private SlotGenerationService slotGenerationService;
 
     @PostMapping
     public ResponseEntity<?> createSlot(@RequestBody SlotRequest request) {
@@ -42,6 +46,7 @@ public class SlotController {
             }
 
             Slot saved = slotRepository.save(new Slot(request.getBarberId(), start, end));
+            availabilityIndex.onSlotSaved(saved);
             // Notify admin: slot created by barber
             try {
                 java.util.Map<String, Object> meta = new java.util.HashMap<>();
@@ -63,26 +68,22 @@ public class SlotController {
     }
 
     @GetMapping("/barber/{barberId}")
-    public ResponseEntity<List<Slot>> getSlotsForBarber(@PathVariable String barberId) {
-        List<Slot> slots = slotRepository.findByBarberIdOrderByStartAsc(barberId);
-        // Filter out slots that already have an active reservation (PENDING or APPROVED) at the same instant
-        List<Reservation> reservations = reservationRepository.findByBarberId(barberId);
-        java.util.Set<java.time.Instant> takenInstants = new java.util.HashSet<>();
-        for (Reservation r : reservations) {
-            if (r.getSlot() != null && (r.getStatus() == ReservationStatus.PENDING || r.getStatus() == ReservationStatus.APPROVED)) {
-                takenInstants.add(r.getSlot());
-            }
+    public ResponseEntity<?> getSlotsForBarber(@PathVariable String barberId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        // Served from the resident availability index: future slots not overlapping an active reservation
+        Instant now = Instant.now();
+        Instant fromInstant;
+        Instant toInstant;
+        try {
+            fromInstant = from != null ? Instant.parse(from) : now;
+            toInstant = to != null ? Instant.parse(to) : null;
+        } catch (Exception e) {
+            return new ResponseEntity<>("Invalid range, use ISO-8601 instants", HttpStatus.BAD_REQUEST);
         }
         // Exclude expired slots: when start time is now or in the past
-        java.time.Instant now = java.time.Instant.now();
-        List<Slot> available = new java.util.ArrayList<>();
-        for (Slot s : slots) {
-            if (s.getStart() != null 
-                && s.getStart().isAfter(now) 
-                && !takenInstants.contains(s.getStart())) {
-                available.add(s);
-            }
-        }
+        if (fromInstant.isBefore(now)) fromInstant = now;
+        List<Slot> available = availabilityIndex.openSlots(barberId, fromInstant, toInstant);
         return new ResponseEntity<>(available, HttpStatus.OK);
     }
 
@@ -94,27 +95,58 @@ public class SlotController {
                 return new ResponseEntity<>("Slot not found", HttpStatus.NOT_FOUND);
             }
 
-            // Check if slot has any active reservations (PENDING, APPROVED, IN_PROGRESS)
-            List<Reservation> reservations = reservationRepository.findByBarberId(slot.getBarberId());
-            for (Reservation r : reservations) {
-                if (r.getSlot() != null && r.getSlot().equals(slot.getStart())) {
-                    ReservationStatus status = r.getStatus();
-                    if (status == ReservationStatus.PENDING || 
-                        status == ReservationStatus.APPROVED || 
-                        status == ReservationStatus.IN_PROGRESS) {
-                        return new ResponseEntity<>("Cannot delete slot with active reservation (status: " + status + ")", HttpStatus.CONFLICT);
-                    }
-                }
+            // Refuse while an active reservation (PENDING, APPROVED, IN_PROGRESS) overlaps the slot
+            Instant end = slot.getEnd() != null ? slot.getEnd() : slot.getStart().plus(ReservationService.DEFAULT_SERVICE_DURATION_MINUTES, ChronoUnit.MINUTES);
+            SlotAvailabilityIndex.Busy busy = availabilityIndex.findOverlap(slot.getBarberId(), slot.getStart(), end);
+            if (busy != null) {
+                return new ResponseEntity<>("Cannot delete slot with active reservation (status: " + busy.status + ")", HttpStatus.CONFLICT);
             }
 
             // Safe to delete - no active reservations
             slotRepository.deleteById(id);
+            availabilityIndex.onSlotDeleted(slot);
             return new ResponseEntity<>("Slot deleted successfully", HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>("Failed to delete slot: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    @GetMapping("/templates/{barberId}")
+    public ResponseEntity<?> getTemplate(@PathVariable String barberId) {
+        return slotGenerationService.getTemplate(barberId)
+                .<ResponseEntity<?>>map(t -> new ResponseEntity<>(t, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>("No schedule template for this barber", HttpStatus.NOT_FOUND));
+    }
+
+    @PutMapping("/templates/{barberId}")
+    public ResponseEntity<?> saveTemplate(@PathVariable String barberId, @RequestBody ScheduleTemplate template) {
+        try {
+            return new ResponseEntity<>(slotGenerationService.saveTemplate(barberId, template), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Expands the barber's weekly template into slots for the given date range; existing slots are skipped.
+     */
+    @PostMapping("/generate")
+    public ResponseEntity<?> generateSlots(@RequestBody GenerateRequest request) {
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = LocalDate.parse(request.getFromDate());
+            toDate = LocalDate.parse(request.getToDate());
+        } catch (Exception e) {
+            return new ResponseEntity<>("Invalid date range. Use YYYY-MM-DD", HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(slotGenerationService.generate(request.getBarberId(), fromDate, toDate), HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @GetMapping("/ping")
     public ResponseEntity<String> ping() {
         return new ResponseEntity<>("slots-ok", HttpStatus.OK);
@@ -134,4 +166,19 @@ public class SlotController {
         public long getDurationMinutes() { return durationMinutes; }
         public void setDurationMinutes(long durationMinutes) { this.durationMinutes = durationMinutes; }
     }
+
+    public static class GenerateRequest {
+        private String barberId;
+        private String fromDate; // YYYY-MM-DD
+        private String toDate;   // YYYY-MM-DD, inclusive
+
+        public GenerateRequest() {}
+
+        public String getBarberId() { return barberId; }
+        public void setBarberId(String barberId) { this.barberId = barberId; }
+        public String getFromDate() { return fromDate; }
+        public void setFromDate(String fromDate) { this.fromDate = fromDate; }
+        public String getToDate() { return toDate; }
+        public void setToDate(String toDate) { this.toDate = toDate; }
+    }
 }
@@ -2,12 +2,21 @@ package com.barbercut.reservation.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 
 @Document(collection = "reservations")
-@CompoundIndex(name = "barber_slot_idx", def = "{'barberId': 1, 'slot': 1}", unique = true)
+@CompoundIndexes({
+    // One live reservation per barber and slot; declined/cancelled rows awaiting archival are not covered
+    @CompoundIndex(name = "barber_slot_active_idx", def = "{'barberId': 1, 'slot': 1}", unique = true,
+            partialFilter = "{ 'status': { '$in': ['PENDING', 'APPROVED', 'IN_PROGRESS', 'COMPLETED'] } }"),
+    @CompoundIndex(name = "barber_slot_scan_idx", def = "{'barberId': 1, 'slot': -1}"),
+    // Admin listing: status filter and date range, newest first
+    @CompoundIndex(name = "status_slot_idx", def = "{'status': 1, 'slot': -1}"),
+    @CompoundIndex(name = "slot_idx", def = "{'slot': -1}")
+})
 public class Reservation {
 
     @Id
@@ -1,15 +1,19 @@
 package com.barbercut.reservation.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 
 @Document(collection = "reservation_archives")
+@CompoundIndex(name = "barber_slot_idx", def = "{'barberId': 1, 'slot': -1}")
 public class ReservationArchive {
     @Id
     private String id;
 
+    @Indexed(unique = true, sparse = true) // keeps archiving idempotent
     private String originalReservationId;
     private String barberId;
     private String clientId;
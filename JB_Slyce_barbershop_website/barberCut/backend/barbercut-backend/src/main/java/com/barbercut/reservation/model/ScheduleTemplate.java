@@ -0,0 +1,63 @@
+package com.barbercut.reservation.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A barber's weekly working hours, expanded into Slot documents by bulk generation.
+ */
+@Document(collection = "schedule_templates")
+public class ScheduleTemplate {
+    @Id
+    private String barberId; // one template per barber
+
+    private String timeZone; // IANA zone the working hours are expressed in, e.g. Europe/Paris
+    private int slotMinutes; // length of each generated slot
+    private List<WorkingHours> hours = new ArrayList<>();
+    private Instant updatedAt;
+
+    public static class WorkingHours {
+        private DayOfWeek day;
+        private String start; // HH:mm
+        private String end;   // HH:mm, exclusive
+
+        public WorkingHours() {}
+
+        public WorkingHours(DayOfWeek day, String start, String end) {
+            this.day = day;
+            this.start = start;
+            this.end = end;
+        }
+
+        public DayOfWeek getDay() { return day; }
+        public void setDay(DayOfWeek day) { this.day = day; }
+
+        public String getStart() { return start; }
+        public void setStart(String start) { this.start = start; }
+
+        public String getEnd() { return end; }
+        public void setEnd(String end) { this.end = end; }
+    }
+
+    public ScheduleTemplate() {}
+
+    public String getBarberId() { return barberId; }
+    public void setBarberId(String barberId) { this.barberId = barberId; }
+
+    public String getTimeZone() { return timeZone; }
+    public void setTimeZone(String timeZone) { this.timeZone = timeZone; }
+
+    public int getSlotMinutes() { return slotMinutes; }
+    public void setSlotMinutes(int slotMinutes) { this.slotMinutes = slotMinutes; }
+
+    public List<WorkingHours> getHours() { return hours; }
+    public void setHours(List<WorkingHours> hours) { this.hours = hours; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
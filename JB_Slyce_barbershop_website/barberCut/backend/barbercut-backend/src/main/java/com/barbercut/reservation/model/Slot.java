@@ -1,5 +1,6 @@
 package com.barbercut.reservation.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -14,6 +15,10 @@ public class Slot {
     private String barberId;
     private Instant start;
     private Instant end;
+    // Claimed atomically by a booking, see SlotClaimService
+    private boolean booked;
+    private String bookedBy; // reservationId holding the claim
+    private long version;
 
     public Slot() {}
 
@@ -34,4 +39,14 @@ public class Slot {
 
     public Instant getEnd() { return end; }
     public void setEnd(Instant end) { this.end = end; }
+
+    public boolean isBooked() { return booked; }
+    public void setBooked(boolean booked) { this.booked = booked; }
+
+    @JsonIgnore
+    public String getBookedBy() { return bookedBy; }
+    public void setBookedBy(String bookedBy) { this.bookedBy = bookedBy; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
@@ -18,6 +18,10 @@ public interface ReservationRepository extends MongoRepository<Reservation, Stri
 
     List<Reservation> findByStatus(ReservationStatus status);
 
+    List<Reservation> findByStatusInAndSlotAfter(List<ReservationStatus> statuses, Instant slot);
+
+    List<Reservation> findByBarberIdAndStatusInAndSlotAfter(String barberId, List<ReservationStatus> statuses, Instant slot);
+
     // Check if a barber has a reservation at a specific time slot
     boolean existsByBarberIdAndSlot(String barberId, Instant slot);
 
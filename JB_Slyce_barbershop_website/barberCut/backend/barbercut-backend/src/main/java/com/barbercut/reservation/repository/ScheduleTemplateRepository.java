@@ -0,0 +1,7 @@
+package com.barbercut.reservation.repository;
+
+import com.barbercut.reservation.model.ScheduleTemplate;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface ScheduleTemplateRepository extends MongoRepository<ScheduleTemplate, String> {
+}
@@ -9,4 +9,6 @@ import java.util.List;
 public interface SlotRepository extends MongoRepository<Slot, String> {
     List<Slot> findByBarberIdOrderByStartAsc(String barberId);
     boolean existsByBarberIdAndStart(String barberId, Instant start);
+    List<Slot> findByBarberIdAndStartAfter(String barberId, Instant start);
+    List<Slot> findByStartAfter(Instant start);
 }
@@ -0,0 +1,136 @@
+package com.barbercut.reservation.service;
+
+import com.barbercut.reservation.model.Reservation;
+import com.barbercut.reservation.model.ReservationArchive;
+import com.barbercut.reservation.model.ReservationStatus;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Moves declined and cancelled reservations into reservation_archives in the background.
+ *
+ * Each batch is an unordered insertMany into the archive followed by a deleteMany of the same
+ * rows. The archive has a unique index on originalReservationId, so a batch that is retried after
+ * a crash between the two steps just hits duplicate keys for rows already copied and deletes them.
+ */
+@Component
+public class ReservationArchiver {
+
+    public static final List<ReservationStatus> TERMINAL_STATUSES =
+            List.of(ReservationStatus.DECLINED, ReservationStatus.CANCELLED);
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${barbercut.archiver.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Drops the pre-archiver full unique index on (barberId, slot); it would keep a declined
+     * reservation blocking its slot until archived. Its partial replacement is declared on Reservation.
+     */
+    @PostConstruct
+    public void dropLegacyIndex() {
+        try {
+            IndexOperations ops = mongoTemplate.indexOps(Reservation.class);
+            for (IndexInfo info : ops.getIndexInfo()) {
+                if ("barber_slot_idx".equals(info.getName())) {
+                    ops.dropIndex(info.getName());
+                }
+            }
+        } catch (Exception ignored) {
+            // Already gone or not permitted; the partial index still takes over for new rows
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${barbercut.archiver.interval-ms:5000}")
+    public void run() {
+        while (archiveBatch() == batchSize) {
+            // keep draining while full batches go through
+        }
+    }
+
+    /**
+     * Archives up to one batch of terminal reservations and returns how many were moved.
+     */
+    public int archiveBatch() {
+        Query pick = new Query(where("status").in(TERMINAL_STATUSES))
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .limit(batchSize);
+        List<Reservation> batch = mongoTemplate.find(pick, Reservation.class);
+        if (batch.isEmpty()) return 0;
+
+        Instant now = Instant.now();
+        List<ReservationArchive> archives = new ArrayList<>(batch.size());
+        for (Reservation r : batch) {
+            archives.add(new ReservationArchive(
+                    r.getId(),
+                    r.getBarberId(),
+                    r.getClientId(),
+                    r.getSlot(),
+                    r.getStatus(),
+                    r.getNotes(),
+                    r.getServiceName(),
+                    r.getServiceDurationMinutes(),
+                    now
+            ));
+        }
+
+        Set<Integer> failed = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReservationArchive.class)
+                    .insert(archives)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) failed.add(error.getIndex());
+            }
+        } catch (DuplicateKeyException e) {
+            // Translated from the bulk write when any row was already archived
+            failed.addAll(nonDuplicateErrors(e.getCause()));
+        }
+
+        List<String> archivedIds = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (!failed.contains(i)) archivedIds.add(batch.get(i).getId());
+        }
+        if (!archivedIds.isEmpty()) {
+            // Only rows that are still terminal, in case one was touched since it was picked up
+            mongoTemplate.remove(new Query(where("id").in(archivedIds).and("status").in(TERMINAL_STATUSES)), Reservation.class);
+        }
+        return archivedIds.size();
+    }
+
+    private Set<Integer> nonDuplicateErrors(Throwable cause) {
+        Set<Integer> out = new HashSet<>();
+        if (cause instanceof MongoBulkWriteException bulk) {
+            for (BulkWriteError error : bulk.getWriteErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) out.add(error.getIndex());
+            }
+        }
+        return out;
+    }
+}
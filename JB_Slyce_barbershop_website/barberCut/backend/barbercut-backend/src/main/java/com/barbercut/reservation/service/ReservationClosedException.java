@@ -0,0 +1,7 @@
+package com.barbercut.reservation.service;
+
+public class ReservationClosedException extends Exception {
+    public ReservationClosedException(String message) {
+        super(message);
+    }
+}
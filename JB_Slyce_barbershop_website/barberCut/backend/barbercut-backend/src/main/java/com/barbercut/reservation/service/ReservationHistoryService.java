@@ -0,0 +1,184 @@
+package com.barbercut.reservation.service;
+
+import com.barbercut.reservation.model.Reservation;
+import com.barbercut.reservation.model.ReservationArchive;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Keyset-paginated history of a barber's active and archived reservations, newest slot first.
+ *
+ * Each page is a streaming two-way merge of a (barberId, slot) range scan on reservations and on
+ * reservation_archives, so the cost of a page depends on the page size and not on how much history
+ * the barber has. Ties on slot order active before archived, then by id descending. The opaque
+ * continuation token encodes the position of the last returned entry.
+ *
+ * While the archiver moves a closed reservation it exists in both collections with the same slot.
+ * The archive copy is skipped when its original was returned on this page, or sorts before the
+ * cursor at the cursor's slot and is still active (so it was returned on the previous page).
+ */
+@Service
+public class ReservationHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final int ACTIVE = 0;
+    private static final int ARCHIVED = 1;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * One merged entry; exactly one of the two fields is set.
+     */
+    public static class HistoryEntry {
+        public final Reservation reservation;
+        public final ReservationArchive archive;
+
+        HistoryEntry(Reservation reservation, ReservationArchive archive) {
+            this.reservation = reservation;
+            this.archive = archive;
+        }
+
+        Instant slot() { return reservation != null ? reservation.getSlot() : archive.getSlot(); }
+        int kind() { return reservation != null ? ACTIVE : ARCHIVED; }
+        String id() { return reservation != null ? reservation.getId() : archive.getId(); }
+    }
+
+    public static class HistoryPage {
+        public final List<HistoryEntry> entries;
+        public final String nextCursor;
+
+        HistoryPage(List<HistoryEntry> entries, String nextCursor) {
+            this.entries = entries;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is not one this service produced
+     */
+    public HistoryPage page(String barberId, String cursor, int limit) {
+        int size = limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        Position after = cursor == null || cursor.isEmpty() ? null : Position.decode(cursor);
+
+        List<HistoryEntry> entries = new ArrayList<>(size);
+        boolean more = false;
+        Set<String> activeIds = new HashSet<>();
+        // Archive copies skipped as duplicates do not fill the page, so read enough to cover them
+        try (Stream<Reservation> active = mongoTemplate.stream(rangeQuery(barberId, after, ACTIVE, size + 1), Reservation.class);
+             Stream<ReservationArchive> archived = mongoTemplate.stream(rangeQuery(barberId, after, ARCHIVED, 3 * size + 1), ReservationArchive.class)) {
+            Iterator<Reservation> a = active.iterator();
+            Iterator<ReservationArchive> h = archived.iterator();
+            HistoryEntry nextA = a.hasNext() ? new HistoryEntry(a.next(), null) : null;
+            HistoryEntry nextH = h.hasNext() ? new HistoryEntry(null, h.next()) : null;
+            while (nextA != null || nextH != null) {
+                if (entries.size() == size) {
+                    more = true;
+                    break;
+                }
+                if (nextH == null || (nextA != null && compare(nextA, nextH) <= 0)) {
+                    entries.add(nextA);
+                    activeIds.add(nextA.id());
+                    nextA = a.hasNext() ? new HistoryEntry(a.next(), null) : null;
+                } else {
+                    if (!isDuplicate(nextH.archive, activeIds, after)) entries.add(nextH);
+                    nextH = h.hasNext() ? new HistoryEntry(null, h.next()) : null;
+                }
+            }
+        }
+
+        String nextCursor = null;
+        if (more) {
+            HistoryEntry last = entries.get(entries.size() - 1);
+            nextCursor = new Position(last.slot(), last.kind(), last.id()).encode();
+        }
+        return new HistoryPage(entries, nextCursor);
+    }
+
+    private boolean isDuplicate(ReservationArchive archive, Set<String> activeIds, Position after) {
+        String original = archive.getOriginalReservationId();
+        if (original == null) return false;
+        if (activeIds.contains(original)) return true;
+        // The original sorted before the cursor, so it was on an earlier page if it is still active
+        return after != null && after.kind == ACTIVE && archive.getSlot().equals(after.slot)
+                && original.compareTo(after.id) >= 0
+                && mongoTemplate.exists(new Query(where("id").is(original)), Reservation.class);
+    }
+
+    // Page order: slot descending, active before archived, id descending
+    private static int compare(HistoryEntry x, HistoryEntry y) {
+        int c = y.slot().compareTo(x.slot());
+        if (c != 0) return c;
+        c = Integer.compare(x.kind(), y.kind());
+        if (c != 0) return c;
+        return y.id().compareTo(x.id());
+    }
+
+    private Query rangeQuery(String barberId, Position after, int kind, int limit) {
+        Criteria c = where("barberId").is(barberId).and("slot").ne(null);
+        if (after != null) {
+            if (kind > after.kind) {
+                c = where("barberId").is(barberId).and("slot").lte(after.slot);
+            } else if (kind < after.kind) {
+                c = where("barberId").is(barberId).and("slot").lt(after.slot);
+            } else {
+                c = where("barberId").is(barberId).orOperator(
+                        where("slot").lt(after.slot),
+                        where("slot").is(after.slot).and("id").lt(after.id));
+            }
+        }
+        return new Query(c)
+                .with(Sort.by(Sort.Direction.DESC, "slot").and(Sort.by(Sort.Direction.DESC, "id")))
+                .limit(limit)
+                .cursorBatchSize(limit);
+    }
+
+    private static class Position {
+        final Instant slot;
+        final int kind;
+        final String id;
+
+        Position(Instant slot, int kind, String id) {
+            this.slot = slot;
+            this.kind = kind;
+            this.id = id;
+        }
+
+        String encode() {
+            String raw = slot.toEpochMilli() + ":" + kind + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Position decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split(":", 3);
+                int kind = Integer.parseInt(parts[1]);
+                if (parts.length != 3 || (kind != ACTIVE && kind != ARCHIVED) || parts[2].isEmpty()) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                return new Position(Instant.ofEpochMilli(Long.parseLong(parts[0])), kind, parts[2]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
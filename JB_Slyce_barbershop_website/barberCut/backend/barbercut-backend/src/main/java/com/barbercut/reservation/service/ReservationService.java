@@ -4,32 +4,44 @@ import com.barbercut.auth.model.User;
 import com.barbercut.auth.repository.UserRepository;
 import com.barbercut.reservation.model.Reservation;
 import com.barbercut.reservation.model.ReservationStatus;
-import com.barbercut.reservation.model.ReservationArchive;
 import com.barbercut.reservation.repository.ReservationRepository;
-import com.barbercut.reservation.repository.ReservationArchiveRepository;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
 @Service
 public class ReservationService {
 
     @Autowired
     private ReservationRepository reservationRepository;
     @Autowired
-    private ReservationArchiveRepository reservationArchiveRepository;
+    private MongoTemplate mongoTemplate;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private SlotAvailabilityIndex availabilityIndex;
+    @Autowired
+    private ReservationStatusScheduler statusScheduler;
+    @Autowired
+    private SlotClaimService slotClaimService;
 
-    // Default service duration in minutes (temporary testing override)
-    private static final int DEFAULT_SERVICE_DURATION_MINUTES = 4;
+    /** Length assumed for reservations and slots that do not carry a duration. */
+    public static final int DEFAULT_SERVICE_DURATION_MINUTES = 60;
 
     public Reservation createReservation(Reservation reservation) throws SlotAlreadyBookedException {
-        // Check if client is banned
+        // Check if client is banned. Always read from the database: token revocations are per instance,
+        // so a valid token does not prove the client was not banned through another instance.
         if (reservation.getClientId() != null) {
             Optional<User> clientOpt = userRepository.findById(reservation.getClientId());
             if (clientOpt.isPresent()) {
@@ -40,15 +52,49 @@ public class ReservationService {
             }
         }
 
-        // Check for slot collision
-        if (reservationRepository.existsByBarberIdAndSlot(reservation.getBarberId(), reservation.getSlot())) {
-            throw new SlotAlreadyBookedException("The selected time slot is already booked for this barber.");
-        }
-
         // Set default status to PENDING
         reservation.setStatus(ReservationStatus.PENDING);
+        // Assign the id up front so the slot claim can record which reservation holds it
+        reservation.setId(new ObjectId().toHexString());
 
-        return reservationRepository.save(reservation);
+        // Hold the whole service interval first so overlapping bookings, not just identical starts, are rejected
+        if (!availabilityIndex.tryHold(reservation)) {
+            throw new SlotAlreadyBookedException("The selected time overlaps another booking for this barber.");
+        }
+
+        // Claim the slot atomically; losers get a conflict without a second write
+        SlotClaimService.ClaimResult claim = null;
+        Reservation saved;
+        try {
+            claim = slotClaimService.claim(reservation.getBarberId(), reservation.getSlot(), reservation.getId());
+            if (claim == SlotClaimService.ClaimResult.TAKEN) {
+                availabilityIndex.onReservationRemoved(reservation);
+                throw new SlotAlreadyBookedException("The selected time slot is already booked for this barber.");
+            }
+            saved = reservationRepository.insert(reservation);
+        } catch (DuplicateKeyException e) {
+            // Held by a reservation made before slot claims existed, or one without a slot document
+            rollBack(reservation, claim);
+            throw new SlotAlreadyBookedException("The selected time slot is already booked for this barber.");
+        } catch (RuntimeException e) {
+            // Timeouts and network errors must not leave the interval held or the slot marked booked
+            rollBack(reservation, claim);
+            throw e;
+        }
+        statusScheduler.track(saved);
+        return saved;
+    }
+
+    // A null claim means the claim call itself failed and may or may not have been applied
+    private void rollBack(Reservation reservation, SlotClaimService.ClaimResult claim) {
+        availabilityIndex.onReservationRemoved(reservation);
+        if (claim == SlotClaimService.ClaimResult.CLAIMED || claim == null) {
+            try {
+                slotClaimService.release(reservation.getBarberId(), reservation.getSlot(), reservation.getId());
+            } catch (RuntimeException ignored) {
+                // Release only matches while this reservation holds the slot; a later repair can retry
+            }
+        }
     }
 
     public List<Reservation> getClientReservations(String clientId) {
@@ -64,47 +110,43 @@ public class ReservationService {
     }
 
     public Reservation updateReservationStatus(String id, ReservationStatus status)
-            throws ReservationNotFoundException {
-        Optional<Reservation> optionalReservation = reservationRepository.findById(id);
-        if (optionalReservation.isPresent()) {
-            Reservation reservation = optionalReservation.get();
-            // If barber declines or reservation is cancelled, archive then delete to free the slot immediately
-            if (status == ReservationStatus.DECLINED || status == ReservationStatus.CANCELLED) {
-                reservation.setStatus(status);
-                // Archive the reservation for history
-                ReservationArchive archive = new ReservationArchive(
-                        reservation.getId(),
-                        reservation.getBarberId(),
-                        reservation.getClientId(),
-                        reservation.getSlot(),
-                        status,
-                        reservation.getNotes(),
-                        reservation.getServiceName(),
-                        reservation.getServiceDurationMinutes(),
-                        Instant.now()
-                );
-                reservationArchiveRepository.save(archive);
-                // Remove the record to allow new reservations for the same slot (due to unique index)
-                reservationRepository.deleteById(id);
-                // Return the previous reservation payload (now deleted) for client UI acknowledgement
-                return reservation;
-            } else {
-                reservation.setStatus(status);
-                return reservationRepository.save(reservation);
+            throws ReservationNotFoundException, ReservationClosedException {
+        // Single conditional update; declined/cancelled reservations are closed and only wait for the archiver
+        Reservation updated = mongoTemplate.findAndModify(
+                query(where("id").is(id).and("status").nin(ReservationArchiver.TERMINAL_STATUSES)),
+                Update.update("status", status),
+                FindAndModifyOptions.options().returnNew(true),
+                Reservation.class);
+        if (updated == null) {
+            if (!reservationRepository.existsById(id)) {
+                throw new ReservationNotFoundException("Reservation with ID " + id + " not found.");
             }
+            throw new ReservationClosedException("Reservation " + id + " is already declined or cancelled.");
+        }
+        if (ReservationArchiver.TERMINAL_STATUSES.contains(status)) {
+            // The partial unique index no longer covers this row, so the slot is bookable right away
+            slotClaimService.release(updated.getBarberId(), updated.getSlot(), updated.getId());
+            availabilityIndex.onReservationRemoved(updated);
         } else {
-            throw new ReservationNotFoundException("Reservation with ID " + id + " not found.");
+            availabilityIndex.onReservationSaved(updated);
+            statusScheduler.track(updated);
         }
+        return updated;
     }
 
     public boolean existsByBarberIdAndSlot(String barberId, Instant slot) {
-        return reservationRepository.existsByBarberIdAndSlot(barberId, slot);
+        // Declined/cancelled rows awaiting archival no longer hold the slot
+        return reservationRepository.existsByBarberIdAndSlotAndStatusIn(barberId, slot, List.of(
+                ReservationStatus.PENDING, ReservationStatus.APPROVED, ReservationStatus.IN_PROGRESS, ReservationStatus.COMPLETED));
     }
 
     public void deleteReservation(String id) throws ReservationNotFoundException {
         Optional<Reservation> optionalReservation = reservationRepository.findById(id);
         if (optionalReservation.isPresent()) {
+            Reservation reservation = optionalReservation.get();
             reservationRepository.deleteById(id);
+            slotClaimService.release(reservation.getBarberId(), reservation.getSlot(), reservation.getId());
+            availabilityIndex.onReservationRemoved(reservation);
         } else {
             throw new ReservationNotFoundException("Reservation with ID " + id + " not found.");
         }
@@ -117,11 +159,9 @@ public class ReservationService {
     public ReservationStatus getEffectiveStatus(Reservation reservation) {
         Instant now = Instant.now();
         Instant slotTime = reservation.getSlot();
-        
-        // Temporarily force all services to use the default duration for testing
-        int duration = DEFAULT_SERVICE_DURATION_MINUTES;
-        
-        Instant serviceEndTime = slotTime.plus(duration, ChronoUnit.MINUTES);
+
+        // Same service end as the overlap index and the status scheduler
+        Instant serviceEndTime = SlotAvailabilityIndex.endOf(reservation);
 
         // If the service has ended, mark as COMPLETED
         if (now.isAfter(serviceEndTime) || now.equals(serviceEndTime)) {
@@ -138,27 +178,13 @@ public class ReservationService {
     }
 
     /**
-     * Auto-updates a reservation's status based on time if needed.
+     * Read-time fallback: overlays the time-derived status on a loaded reservation without persisting it.
+     * The stored transition is made by {@link ReservationStatusScheduler}.
      */
-    public Reservation autoUpdateStatus(Reservation reservation) {
-        ReservationStatus effectiveStatus = getEffectiveStatus(reservation);
-        if (effectiveStatus != reservation.getStatus()) {
-            reservation.setStatus(effectiveStatus);
-            return reservationRepository.save(reservation);
+    public Reservation applyEffectiveStatus(Reservation reservation) {
+        if (reservation.getSlot() != null && !ReservationArchiver.TERMINAL_STATUSES.contains(reservation.getStatus())) {
+            reservation.setStatus(getEffectiveStatus(reservation));
         }
         return reservation;
     }
-
-    /**
-     * Auto-updates all reservations for a barber based on time.
-     */
-    public void autoUpdateReservationsForBarber(String barberId) {
-        List<Reservation> reservations = getAllReservationsForBarber(barberId);
-        for (Reservation reservation : reservations) {
-            if (reservation.getStatus() == ReservationStatus.APPROVED || 
-                reservation.getStatus() == ReservationStatus.IN_PROGRESS) {
-                autoUpdateStatus(reservation);
-            }
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.barbercut.reservation.service;
+
+import com.barbercut.reservation.model.Reservation;
+import com.barbercut.reservation.model.ReservationStatus;
+import com.barbercut.reservation.repository.ReservationRepository;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Moves reservations to IN_PROGRESS when their slot starts and to COMPLETED when the service ends.
+ * The service end is the reservation's own duration (default when unset), the same end the
+ * availability index uses for overlap checks.
+ *
+ * Upcoming slot boundaries are kept in a time-ordered queue and a single timer wakes up at the
+ * earliest one; each wake-up applies every due transition with two updateMany calls. A periodic
+ * sweep covers reservations written by other instances or boundaries lost on restart.
+ */
+@Component
+public class ReservationStatusScheduler {
+
+    private static final List<ReservationStatus> STARTABLE =
+            List.of(ReservationStatus.PENDING, ReservationStatus.APPROVED);
+    private static final List<ReservationStatus> COMPLETABLE =
+            List.of(ReservationStatus.PENDING, ReservationStatus.APPROVED, ReservationStatus.IN_PROGRESS);
+
+    // How far back to load reservations whose service may still be running
+    private static final Duration LOOKBACK = Duration.ofHours(12);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private final ConcurrentSkipListSet<Instant> boundaries = new ConcurrentSkipListSet<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "reservation-status-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+    private ScheduledFuture<?> nextRun;
+    private Instant nextRunAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Instant since = Instant.now().minus(LOOKBACK);
+        for (Reservation r : reservationRepository.findByStatusInAndSlotAfter(COMPLETABLE, since)) {
+            addBoundaries(r);
+        }
+        timer.execute(this::runDue);
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Registers the start and end boundaries of a reservation that may still need a time-driven transition.
+     */
+    public void track(Reservation reservation) {
+        if (addBoundaries(reservation)) reschedule();
+    }
+
+    /**
+     * Safety net for boundaries this instance never saw (other nodes, restarts, failed runs).
+     */
+    @Scheduled(fixedDelayString = "${barbercut.status-scheduler.sweep-ms:60000}")
+    public void sweep() {
+        applyTransitions(Instant.now());
+    }
+
+    void applyTransitions(Instant now) {
+        Date at = Date.from(now);
+        // Finished services first so a reservation whose whole window has passed goes straight to COMPLETED
+        mongoTemplate.updateMulti(
+                query(where("status").in(COMPLETABLE).and("slot").lte(now)
+                        .andOperator(Criteria.expr(() -> new Document("$lte", List.of(SERVICE_END, at))))),
+                Update.update("status", ReservationStatus.COMPLETED),
+                Reservation.class);
+        mongoTemplate.updateMulti(
+                query(where("status").in(STARTABLE).and("slot").lte(now)
+                        .andOperator(Criteria.expr(() -> new Document("$gt", List.of(SERVICE_END, at))))),
+                Update.update("status", ReservationStatus.IN_PROGRESS),
+                Reservation.class);
+    }
+
+    // slot + serviceDurationMinutes (or the default) as a query expression, matching SlotAvailabilityIndex.endOf
+    private static final Document SERVICE_END = new Document("$add", List.of("$slot",
+            new Document("$multiply", List.of(
+                    new Document("$cond", List.of(
+                            new Document("$gt", List.of("$serviceDurationMinutes", 0)),
+                            "$serviceDurationMinutes",
+                            ReservationService.DEFAULT_SERVICE_DURATION_MINUTES)),
+                    60_000))));
+
+    private boolean addBoundaries(Reservation r) {
+        if (r.getSlot() == null || !COMPLETABLE.contains(r.getStatus())) return false;
+        Instant now = Instant.now();
+        Instant start = r.getSlot();
+        Instant end = SlotAvailabilityIndex.endOf(r);
+        boolean added = false;
+        if (start.isAfter(now)) added |= boundaries.add(start);
+        if (end.isAfter(now)) added |= boundaries.add(end);
+        return added;
+    }
+
+    private void runDue() {
+        Instant now = Instant.now();
+        boundaries.headSet(now, true).clear();
+        try {
+            applyTransitions(now);
+        } catch (Exception ignored) {
+            // The periodic sweep retries
+        } finally {
+            synchronized (this) {
+                nextRun = null;
+                nextRunAt = null;
+            }
+            reschedule();
+        }
+    }
+
+    private synchronized void reschedule() {
+        if (timer.isShutdown() || boundaries.isEmpty()) return;
+        Instant first = boundaries.first();
+        if (nextRun != null && nextRunAt != null && !nextRunAt.isAfter(first)) return;
+        if (nextRun != null) nextRun.cancel(false);
+        long delay = Math.max(0, Duration.between(Instant.now(), first).toMillis());
+        nextRunAt = first;
+        nextRun = timer.schedule(this::runDue, delay, TimeUnit.MILLISECONDS);
+    }
+}
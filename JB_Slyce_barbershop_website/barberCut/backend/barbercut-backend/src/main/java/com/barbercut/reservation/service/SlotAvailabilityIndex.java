@@ -0,0 +1,291 @@
+package com.barbercut.reservation.service;
+
+import com.barbercut.reservation.model.Reservation;
+import com.barbercut.reservation.model.ReservationStatus;
+import com.barbercut.reservation.model.Slot;
+import com.barbercut.reservation.repository.ReservationRepository;
+import com.barbercut.reservation.repository.SlotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Resident per-barber availability index: the barber's slots sorted by start plus the time
+ * intervals held by active reservations. Kept current by the slot and reservation write paths
+ * so that listing open slots and detecting overlapping bookings never has to touch Mongo.
+ *
+ * Busy intervals are keyed by start; each barber also tracks its longest interval, so an overlap
+ * query only has to look at starts in [from - longest, to) - O(log n) plus the handful of hits.
+ *
+ * A barber is loaded from Mongo on first use (and for every barber at startup); mutations for
+ * barbers that are not loaded yet are skipped because the next load will read them anyway.
+ *
+ * A rebuild reads into a new map and swaps it in, so readers never see a partial index. Changes
+ * made while it reads Mongo are applied to the live index and also recorded, then replayed onto
+ * the new map just before the swap, so a hold taken during the rebuild is not lost.
+ */
+@Component
+public class SlotAvailabilityIndex {
+
+    /** Statuses whose service interval blocks the barber's time. */
+    static final List<ReservationStatus> BUSY_STATUSES =
+            List.of(ReservationStatus.PENDING, ReservationStatus.APPROVED, ReservationStatus.IN_PROGRESS);
+
+    // How far back to load reservations that may still be running
+    private static final Duration LOOKBACK = Duration.ofHours(12);
+
+    @Autowired
+    private SlotRepository slotRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private volatile Map<String, BarberAvailability> barbers = new ConcurrentHashMap<>();
+    // Changes take the read side, the swap the write side, so none lands between replay and swap
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // Changes made while a rebuild is in progress, null otherwise
+    private volatile Queue<Change> pending;
+
+    /** A change to one barber's availability, kept for replay onto a rebuilt index. */
+    private static class Change {
+        final String barberId;
+        final Consumer<BarberAvailability> apply;
+
+        Change(String barberId, Consumer<BarberAvailability> apply) {
+            this.barberId = barberId;
+            this.apply = apply;
+        }
+    }
+
+    /** An interval held by a reservation. */
+    public static class Busy {
+        public final Instant start;
+        public final Instant end;
+        public final String reservationId;
+        public final ReservationStatus status;
+
+        Busy(Instant start, Instant end, String reservationId, ReservationStatus status) {
+            this.start = start;
+            this.end = end;
+            this.reservationId = reservationId;
+            this.status = status;
+        }
+    }
+
+    static class BarberAvailability {
+        final ConcurrentSkipListMap<Instant, Slot> slots = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListMap<Instant, Busy> busy = new ConcurrentSkipListMap<>();
+        // Upper bound on busy interval length; only grows, which keeps overlap queries correct
+        volatile Duration longest = Duration.ofMinutes(ReservationService.DEFAULT_SERVICE_DURATION_MINUTES);
+
+        synchronized void hold(Busy b) {
+            busy.put(b.start, b);
+            Duration length = Duration.between(b.start, b.end);
+            if (length.compareTo(longest) > 0) longest = length;
+        }
+
+        synchronized void release(Instant start, String reservationId) {
+            Busy current = busy.get(start);
+            if (current != null && (reservationId == null || reservationId.equals(current.reservationId))) {
+                busy.remove(start);
+            }
+        }
+
+        Busy firstOverlap(Instant from, Instant to, String ignoreReservationId) {
+            for (Busy b : busy.subMap(from.minus(longest), false, to, false).values()) {
+                if (b.end.isAfter(from) && (ignoreReservationId == null || !ignoreReservationId.equals(b.reservationId))) {
+                    return b;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Rebuilds the whole index from the future part of the slots and reservations collections.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        swapLock.writeLock().lock();
+        try {
+            pending = new ConcurrentLinkedQueue<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        try {
+            Instant now = Instant.now();
+            Map<String, BarberAvailability> fresh = new ConcurrentHashMap<>();
+            for (Slot s : slotRepository.findByStartAfter(now)) {
+                if (s.getBarberId() == null || s.getStart() == null) continue;
+                fresh.computeIfAbsent(s.getBarberId(), k -> new BarberAvailability()).slots.put(s.getStart(), s);
+            }
+            for (Reservation r : reservationRepository.findByStatusInAndSlotAfter(BUSY_STATUSES, now.minus(LOOKBACK))) {
+                if (r.getBarberId() == null || r.getSlot() == null) continue;
+                fresh.computeIfAbsent(r.getBarberId(), k -> new BarberAvailability()).hold(toBusy(r));
+            }
+            swapLock.writeLock().lock();
+            try {
+                // Replaying is idempotent, so a change the reads already saw does no harm
+                for (Change c : pending) {
+                    BarberAvailability a = fresh.get(c.barberId);
+                    if (a != null) {
+                        c.apply.accept(a);
+                    } else {
+                        // Nothing of this barber was read; the live entry already has the change
+                        BarberAvailability live = barbers.get(c.barberId);
+                        if (live != null) fresh.put(c.barberId, live);
+                    }
+                }
+                barbers = fresh;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        } finally {
+            pending = null;
+        }
+    }
+
+    /**
+     * Open slots for a barber whose start lies strictly after {@code from} and before {@code to}
+     * (unbounded when {@code to} is null), excluding slots that overlap an active reservation.
+     */
+    public List<Slot> openSlots(String barberId, Instant from, Instant to) {
+        BarberAvailability a = load(barberId);
+        Map<Instant, Slot> range = to == null
+                ? a.slots.tailMap(from, false)
+                : a.slots.subMap(from, false, to, false);
+        List<Slot> out = new ArrayList<>();
+        for (Slot s : range.values()) {
+            if (a.firstOverlap(s.getStart(), endOf(s), null) == null) out.add(s);
+        }
+        return out;
+    }
+
+    /**
+     * The first active reservation overlapping [from, to), or null when the barber is free.
+     */
+    public Busy findOverlap(String barberId, Instant from, Instant to) {
+        return load(barberId).firstOverlap(from, to, null);
+    }
+
+    /**
+     * Atomically checks that the reservation's service interval is free and holds it.
+     * Returns false, leaving the index untouched, when it overlaps another active reservation.
+     */
+    public boolean tryHold(Reservation r) {
+        if (r.getBarberId() == null || r.getSlot() == null) return true;
+        Busy b = toBusy(r);
+        swapLock.readLock().lock();
+        try {
+            BarberAvailability a = load(r.getBarberId());
+            synchronized (a) {
+                if (a.firstOverlap(b.start, b.end, r.getId()) != null) return false;
+                a.hold(b);
+            }
+            Queue<Change> changes = pending;
+            if (changes != null) changes.add(new Change(r.getBarberId(), x -> x.hold(b)));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        return true;
+    }
+
+    public void onSlotSaved(Slot slot) {
+        if (slot.getBarberId() == null || slot.getStart() == null) return;
+        change(slot.getBarberId(), a -> a.slots.put(slot.getStart(), slot));
+    }
+
+    public void onSlotDeleted(Slot slot) {
+        if (slot.getBarberId() == null || slot.getStart() == null) return;
+        change(slot.getBarberId(), a -> a.slots.remove(slot.getStart()));
+    }
+
+    /**
+     * Records the current state of a reservation: busy statuses hold its interval, anything else releases it.
+     */
+    public void onReservationSaved(Reservation r) {
+        if (r.getBarberId() == null || r.getSlot() == null) return;
+        if (BUSY_STATUSES.contains(r.getStatus())) {
+            Busy b = toBusy(r);
+            change(r.getBarberId(), a -> a.hold(b));
+        } else {
+            Instant start = r.getSlot();
+            String id = r.getId();
+            change(r.getBarberId(), a -> a.release(start, id));
+        }
+    }
+
+    public void onReservationRemoved(Reservation r) {
+        if (r.getBarberId() == null || r.getSlot() == null) return;
+        Instant start = r.getSlot();
+        String id = r.getId();
+        change(r.getBarberId(), a -> a.release(start, id));
+    }
+
+    // Applies a change to a loaded barber and records it for a rebuild in progress
+    private void change(String barberId, Consumer<BarberAvailability> apply) {
+        swapLock.readLock().lock();
+        try {
+            barbers.computeIfPresent(barberId, (k, a) -> {
+                apply.accept(a);
+                return a;
+            });
+            Queue<Change> changes = pending;
+            if (changes != null) changes.add(new Change(barberId, apply));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    public static Instant endOf(Reservation r) {
+        int minutes = r.getServiceDurationMinutes() > 0 ? r.getServiceDurationMinutes() : ReservationService.DEFAULT_SERVICE_DURATION_MINUTES;
+        return r.getSlot().plus(minutes, ChronoUnit.MINUTES);
+    }
+
+    private static Instant endOf(Slot s) {
+        return s.getEnd() != null && s.getEnd().isAfter(s.getStart())
+                ? s.getEnd()
+                : s.getStart().plus(ReservationService.DEFAULT_SERVICE_DURATION_MINUTES, ChronoUnit.MINUTES);
+    }
+
+    private static Busy toBusy(Reservation r) {
+        return new Busy(r.getSlot(), endOf(r), r.getId(), r.getStatus());
+    }
+
+    private BarberAvailability load(String barberId) {
+        Instant now = Instant.now();
+        BarberAvailability a = barbers.computeIfAbsent(barberId, k -> {
+            BarberAvailability fresh = new BarberAvailability();
+            for (Slot s : slotRepository.findByBarberIdAndStartAfter(k, now)) {
+                if (s.getStart() != null) fresh.slots.put(s.getStart(), s);
+            }
+            for (Reservation r : reservationRepository.findByBarberIdAndStatusInAndSlotAfter(k, BUSY_STATUSES, now.minus(LOOKBACK))) {
+                if (r.getSlot() != null) fresh.hold(toBusy(r));
+            }
+            return fresh;
+        });
+        // Drop history that can never be listed or overlapped again
+        a.slots.headMap(now, true).clear();
+        synchronized (a) {
+            Iterator<Busy> it = a.busy.headMap(now, true).values().iterator();
+            while (it.hasNext()) {
+                if (!it.next().end.isAfter(now)) it.remove();
+            }
+        }
+        return a;
+    }
+}
@@ -0,0 +1,62 @@
+package com.barbercut.reservation.service;
+
+import com.barbercut.reservation.model.Slot;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Atomic claim/release of a barber's slot document. A claim is a single findAndModify that only
+ * books a free slot, so of many concurrent bookers exactly one wins and the others see it was
+ * already booked. Every transition bumps the slot version.
+ */
+@Service
+public class SlotClaimService {
+
+    public enum ClaimResult {
+        CLAIMED,
+        TAKEN,
+        NO_SLOT
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public ClaimResult claim(String barberId, Instant start, String reservationId) {
+        // Matches the slot whether or not it is booked and only takes it when free, so the previous
+        // state tells CLAIMED, TAKEN and NO_SLOT apart in this one round trip
+        Document takenAlready = new Document("$eq", List.of("$booked", true));
+        AggregationUpdate update = AggregationUpdate.from(List.of(ctx -> new Document("$set", new Document()
+                .append("bookedBy", new Document("$cond", List.of(takenAlready, "$bookedBy", reservationId)))
+                .append("version", new Document("$cond", List.of(takenAlready, "$version",
+                        new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L)))))
+                .append("booked", true))));
+        Query q = query(where("barberId").is(barberId).and("start").is(start));
+        q.fields().include("booked");
+        Slot before = mongoTemplate.findAndModify(q, update, FindAndModifyOptions.options().returnNew(false), Slot.class);
+        if (before == null) return ClaimResult.NO_SLOT; // an instant the barber never published as a slot
+        return before.isBooked() ? ClaimResult.TAKEN : ClaimResult.CLAIMED;
+    }
+
+    /**
+     * Frees the slot if, and only if, it is still held by the given reservation.
+     */
+    public void release(String barberId, Instant start, String reservationId) {
+        if (barberId == null || start == null || reservationId == null) return;
+        mongoTemplate.updateFirst(
+                query(where("barberId").is(barberId).and("start").is(start).and("bookedBy").is(reservationId)),
+                new Update().set("booked", false).unset("bookedBy").inc("version", 1),
+                Slot.class);
+    }
+}
@@ -0,0 +1,198 @@
+package com.barbercut.reservation.service;
+
+import com.barbercut.notification.service.NotificationService;
+import com.barbercut.reservation.model.ScheduleTemplate;
+import com.barbercut.reservation.model.Slot;
+import com.barbercut.reservation.repository.ScheduleTemplateRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Weekly schedule templates and their expansion into Slot documents.
+ *
+ * Generation writes the whole range with one unordered insertMany. Slots that already exist are
+ * rejected by the barber_start_idx unique index and simply counted as skipped, so re-running a
+ * range is safe. Slots rejected for any other reason are reported as failed, not skipped. One
+ * summarising notification is published per batch.
+ */
+@Service
+public class SlotGenerationService {
+
+    public static final int DEFAULT_SLOT_MINUTES = 60;
+    public static final int MAX_RANGE_DAYS = 92;
+
+    private static final int DUPLICATE_KEY = 11000;
+    private static final Logger log = LoggerFactory.getLogger(SlotGenerationService.class);
+
+    @Autowired
+    private ScheduleTemplateRepository templateRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private SlotAvailabilityIndex availabilityIndex;
+    @Autowired
+    private NotificationService notificationService;
+
+    public static class GenerationResult {
+        public String barberId;
+        public LocalDate fromDate;
+        public LocalDate toDate;
+        public int created;
+        public int skipped; // already existed
+        public int failed;  // rejected for any other reason
+    }
+
+    public Optional<ScheduleTemplate> getTemplate(String barberId) {
+        return templateRepository.findById(barberId);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the template is malformed
+     */
+    public ScheduleTemplate saveTemplate(String barberId, ScheduleTemplate template) {
+        template.setBarberId(barberId);
+        if (template.getSlotMinutes() <= 0) template.setSlotMinutes(DEFAULT_SLOT_MINUTES);
+        if (template.getTimeZone() == null || template.getTimeZone().isEmpty()) {
+            template.setTimeZone(ZoneId.systemDefault().getId());
+        }
+        try {
+            ZoneId.of(template.getTimeZone());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid timeZone: " + template.getTimeZone());
+        }
+        if (template.getHours() == null) template.setHours(new ArrayList<>());
+        for (ScheduleTemplate.WorkingHours h : template.getHours()) {
+            if (h.getDay() == null) throw new IllegalArgumentException("Working hours need a day");
+            LocalTime start = parseTime(h.getStart());
+            LocalTime end = parseTime(h.getEnd());
+            if (!end.isAfter(start)) throw new IllegalArgumentException("Working hours must end after they start");
+        }
+        template.setUpdatedAt(Instant.now());
+        return templateRepository.save(template);
+    }
+
+    /**
+     * Expands the barber's template over [fromDate, toDate] (inclusive) and inserts the future slots.
+     *
+     * @throws IllegalArgumentException if there is no template or the range is invalid
+     */
+    public GenerationResult generate(String barberId, LocalDate fromDate, LocalDate toDate) {
+        ScheduleTemplate template = templateRepository.findById(barberId)
+                .orElseThrow(() -> new IllegalArgumentException("No schedule template for barber " + barberId));
+        if (toDate.isBefore(fromDate)) throw new IllegalArgumentException("toDate must not be before fromDate");
+        if (ChronoUnit.DAYS.between(fromDate, toDate) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Range is limited to " + MAX_RANGE_DAYS + " days");
+        }
+
+        List<Slot> slots = expand(template, fromDate, toDate, Instant.now());
+        GenerationResult result = new GenerationResult();
+        result.barberId = barberId;
+        result.fromDate = fromDate;
+        result.toDate = toDate;
+        if (slots.isEmpty()) return result;
+
+        // Ids are assigned up front so the inserted documents are known without reading them back
+        for (Slot s : slots) s.setId(new ObjectId().toHexString());
+        Set<Integer> duplicates = new HashSet<>();
+        Set<Integer> failures = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Slot.class).insert(slots).execute();
+        } catch (BulkOperationException e) {
+            sortErrors(e.getErrors(), duplicates, failures);
+        } catch (DuplicateKeyException e) {
+            // Translated from the bulk write when any slot already existed
+            if (!(e.getCause() instanceof MongoBulkWriteException bulk)) throw e;
+            sortErrors(bulk.getWriteErrors(), duplicates, failures);
+        }
+
+        List<Slot> created = new ArrayList<>();
+        for (int i = 0; i < slots.size(); i++) {
+            if (!duplicates.contains(i) && !failures.contains(i)) created.add(slots.get(i));
+        }
+        for (Slot s : created) availabilityIndex.onSlotSaved(s);
+        result.created = created.size();
+        result.skipped = duplicates.size();
+        result.failed = failures.size();
+        if (!failures.isEmpty()) {
+            log.warn("Slot generation for {} rejected {} slots with errors other than duplicates", barberId, failures.size());
+        }
+
+        if (!created.isEmpty()) {
+            try {
+                Map<String, Object> meta = new HashMap<>();
+                meta.put("barberId", barberId);
+                meta.put("fromDate", fromDate.toString());
+                meta.put("toDate", toDate.toString());
+                meta.put("created", result.created);
+                meta.put("skipped", result.skipped);
+                meta.put("failed", result.failed);
+                notificationService.publish(
+                        "SLOTS_GENERATED",
+                        "Slots generated",
+                        "Barber " + barberId + " created " + result.created + " slots from " + fromDate + " to " + toDate,
+                        barberId,
+                        barberId,
+                        meta
+                );
+            } catch (Exception ignored) {}
+        }
+        return result;
+    }
+
+    private List<Slot> expand(ScheduleTemplate template, LocalDate fromDate, LocalDate toDate, Instant now) {
+        ZoneId zone = ZoneId.of(template.getTimeZone() != null ? template.getTimeZone() : ZoneId.systemDefault().getId());
+        int minutes = template.getSlotMinutes() > 0 ? template.getSlotMinutes() : DEFAULT_SLOT_MINUTES;
+        List<Slot> out = new ArrayList<>();
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            for (ScheduleTemplate.WorkingHours h : template.getHours()) {
+                if (h.getDay() != date.getDayOfWeek()) continue;
+                Instant end = date.atTime(parseTime(h.getEnd())).atZone(zone).toInstant();
+                Instant start = date.atTime(parseTime(h.getStart())).atZone(zone).toInstant();
+                while (!start.plus(minutes, ChronoUnit.MINUTES).isAfter(end)) {
+                    Instant slotEnd = start.plus(minutes, ChronoUnit.MINUTES);
+                    if (start.isAfter(now)) out.add(new Slot(template.getBarberId(), start, slotEnd));
+                    start = slotEnd;
+                }
+            }
+        }
+        return out;
+    }
+
+    // Only duplicate keys mean "already existed"; anything else is a real failure for that slot
+    private void sortErrors(List<BulkWriteError> errors, Set<Integer> duplicates, Set<Integer> failures) {
+        for (BulkWriteError error : errors) {
+            (error.getCode() == DUPLICATE_KEY ? duplicates : failures).add(error.getIndex());
+        }
+    }
+
+    private LocalTime parseTime(String value) {
+        try {
+            return LocalTime.parse(value);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid time: " + value + ". Use HH:mm");
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package com.barbercut.user.controller;
 
-import com.barbercut.rating.model.Rating;
-import com.barbercut.rating.repository.RatingRepository;
+import com.barbercut.rating.model.BarberRatingStats;
+import com.barbercut.rating.service.BarberLeaderboard;
+import com.barbercut.rating.service.RatingStatsService;
+import com.barbercut.user.service.BarberDirectory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.DoubleSummaryStatistics;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/barbers")
@@ -16,7 +19,13 @@ import java.util.List;
 public class BarberController {
 
     @Autowired
-    private RatingRepository ratingRepository;
+    private RatingStatsService ratingStatsService;
+
+    @Autowired
+    private BarberLeaderboard leaderboard;
+
+    @Autowired
+    private BarberDirectory barberDirectory;
 
     public static class RatingSummary {
         public double averageRating;
@@ -25,11 +34,45 @@ public class BarberController {
 
     @GetMapping("/{barberId}/rating-summary")
     public ResponseEntity<RatingSummary> getRatingSummary(@PathVariable String barberId) {
-        List<Rating> list = ratingRepository.findByBarberId(barberId);
-        DoubleSummaryStatistics stats = list.stream().mapToDouble(Rating::getRating).summaryStatistics();
+        BarberRatingStats stats = ratingStatsService.get(barberId);
         RatingSummary out = new RatingSummary();
         out.reviewCount = stats.getCount();
-        out.averageRating = stats.getCount() == 0 ? 0.0 : Math.round((stats.getAverage()) * 10.0) / 10.0; // 1 decimal
+        out.averageRating = stats.getAverage(); // 1 decimal
+        return new ResponseEntity<>(out, HttpStatus.OK);
+    }
+
+    public static class LeaderboardEntry {
+        public int rank;
+        public String barberId;
+        public String name;
+        public String avatarUrl;
+        public double score;          // Bayesian-smoothed, time-decayed
+        public double decayedAverage; // recent ratings weigh more
+        public long ratingCount;
+    }
+
+    @GetMapping("/leaderboard")
+    public ResponseEntity<?> getLeaderboard(@RequestParam(defaultValue = "10") int k) {
+        if (k <= 0) {
+            return new ResponseEntity<>("k must be positive", HttpStatus.BAD_REQUEST);
+        }
+        List<BarberLeaderboard.Entry> top = leaderboard.top(k);
+        List<String> barberIds = new ArrayList<>();
+        for (BarberLeaderboard.Entry e : top) barberIds.add(e.barberId);
+        Map<String, BarberDirectory.Entry> barbers = barberDirectory.findAll(barberIds);
+        List<LeaderboardEntry> out = new ArrayList<>();
+        for (BarberLeaderboard.Entry e : top) {
+            BarberDirectory.Entry b = barbers.get(e.barberId);
+            LeaderboardEntry v = new LeaderboardEntry();
+            v.rank = out.size() + 1;
+            v.barberId = e.barberId;
+            v.name = b != null ? b.displayName : e.barberId;
+            v.avatarUrl = b != null ? b.avatarUrl : null;
+            v.score = e.score;
+            v.decayedAverage = e.decayedAverage;
+            v.ratingCount = e.ratingCount;
+            out.add(v);
+        }
         return new ResponseEntity<>(out, HttpStatus.OK);
     }
 }
@@ -3,10 +3,15 @@ package com.barbercut.user.controller;
 import com.barbercut.auth.model.User;
 import com.barbercut.auth.model.UserRole;
 import com.barbercut.auth.repository.UserRepository;
-import com.barbercut.rating.model.Rating;
-import com.barbercut.rating.repository.RatingRepository;
 import com.barbercut.notification.service.NotificationService;
+import com.barbercut.user.service.BarberDirectory;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -25,32 +30,70 @@ public class UserController {
     private UserRepository userRepository;
 
     @Autowired
-    private RatingRepository ratingRepository;
+    private MongoTemplate mongoTemplate;
 
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private BarberDirectory barberDirectory;
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Barbers with their rating stats, joined and sorted server-side in one aggregation.
+     * sort: "rating" (best first) or "newest"; otherwise sign-up order. page/size are optional.
+     */
     @GetMapping("/barbers")
-    public ResponseEntity<List<BarberView>> getBarbers() {
-        List<User> barbers = userRepository.findByRole(UserRole.BARBER);
+    public ResponseEntity<?> getBarbers(@RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        if (size != null && (size <= 0 || (page != null && page < 0))) {
+            return new ResponseEntity<>("Invalid page or size", HttpStatus.BAD_REQUEST);
+        }
+        List<AggregationOperation> ops = new ArrayList<>();
+        ops.add(Aggregation.match(Criteria.where("role").is(UserRole.BARBER.name())));
+        // barber_rating_stats is keyed by the barberId used across the app (username for legacy barbers)
+        ops.add(ctx -> new Document("$addFields", new Document("barberKey",
+                new Document("$ifNull", List.of("$barberId", "$username")))));
+        ops.add(ctx -> new Document("$lookup", new Document("from", "barber_rating_stats")
+                .append("localField", "barberKey").append("foreignField", "_id").append("as", "stats")));
+        ops.add(ctx -> new Document("$addFields", new Document()
+                .append("ratingSum", new Document("$ifNull", List.of(new Document("$arrayElemAt", List.of("$stats.sum", 0)), 0)))
+                .append("ratingCount", new Document("$ifNull", List.of(new Document("$arrayElemAt", List.of("$stats.count", 0)), 0)))));
+        ops.add(ctx -> new Document("$addFields", new Document("ratingAverage", new Document("$cond", List.of(
+                new Document("$gt", List.of("$ratingCount", 0)),
+                new Document("$divide", List.of("$ratingSum", "$ratingCount")),
+                0)))));
+        if ("rating".equalsIgnoreCase(sort)) {
+            ops.add(Aggregation.sort(Sort.by(Sort.Direction.DESC, "ratingAverage", "ratingCount").and(Sort.by("_id"))));
+        } else if ("newest".equalsIgnoreCase(sort)) {
+            ops.add(Aggregation.sort(Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by("_id"))));
+        } else {
+            ops.add(Aggregation.sort(Sort.by("_id")));
+        }
+        if (size != null) {
+            int limit = Math.min(size, MAX_PAGE_SIZE);
+            long skip = (long) (page != null ? page : 0) * limit;
+            if (skip > 0) ops.add(Aggregation.skip(skip));
+            ops.add(Aggregation.limit(limit));
+        }
+        ops.add(ctx -> new Document("$project", new Document()
+                .append("barberKey", 1).append("username", 1).append("bio", 1).append("avatarUrl", 1)
+                .append("createdAt", 1).append("ratingAverage", 1).append("ratingCount", 1)));
+
         List<BarberView> out = new ArrayList<>();
-        for (User u : barbers) {
+        for (Document row : mongoTemplate.aggregate(Aggregation.newAggregation(ops), "users", Document.class).getMappedResults()) {
             BarberView v = new BarberView();
-            v.id = u.getBarberId() != null ? u.getBarberId() : u.getUsername();
-            v.username = u.getUsername();
-            v.name = capitalize(u.getUsername());
-            v.bio = u.getBio();
-            v.avatarUrl = u.getAvatarUrl();
-            v.createdAt = u.getCreatedAt();
-            try {
-                java.util.List<Rating> list = ratingRepository.findByBarberId(v.id);
-                java.util.DoubleSummaryStatistics stats = list.stream().mapToDouble(Rating::getRating).summaryStatistics();
-                v.ratingCount = stats.getCount();
-                v.ratingAverage = stats.getCount() == 0 ? 0.0 : Math.round(stats.getAverage() * 10.0) / 10.0;
-            } catch (Exception ignored) {
-                v.ratingAverage = 0.0;
-                v.ratingCount = 0L;
-            }
+            v.id = row.getString("barberKey");
+            v.username = row.getString("username");
+            v.name = capitalize(v.username);
+            v.bio = row.getString("bio");
+            v.avatarUrl = row.getString("avatarUrl");
+            java.util.Date createdAt = row.getDate("createdAt");
+            v.createdAt = createdAt != null ? createdAt.toInstant() : null;
+            v.ratingCount = ((Number) row.get("ratingCount")).longValue();
+            v.ratingAverage = Math.round(((Number) row.get("ratingAverage")).doubleValue() * 10.0) / 10.0; // 1 decimal
             out.add(v);
         }
         return new ResponseEntity<>(out, HttpStatus.OK);
@@ -83,6 +126,7 @@ public class UserController {
         if (body.bio != null) u.setBio(body.bio);
         if (body.avatarUrl != null) u.setAvatarUrl(body.avatarUrl);
         userRepository.save(u);
+        barberDirectory.invalidate(u.getBarberId());
         try {
             java.util.Map<String, Object> meta = new java.util.HashMap<>();
             meta.put("userId", u.getId());
@@ -128,6 +172,7 @@ public class UserController {
             String publicUrl = "/uploads/avatars/" + fname;
             u.setAvatarUrl(publicUrl);
             userRepository.save(u);
+            barberDirectory.invalidate(u.getBarberId());
             try {
                 java.util.Map<String, Object> meta = new java.util.HashMap<>();
                 meta.put("userId", u.getId());
@@ -0,0 +1,128 @@
+package com.barbercut.user.service;
+
+import com.barbercut.auth.model.User;
+import com.barbercut.auth.service.UserLookupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Barber identity (username, display name, avatar) keyed by barberId, cached in process.
+ *
+ * Misses are loaded with one indexed $in query on users.barberId. The cache is an LRU bounded
+ * by max-entries; unknown barbers are cached too so repeated lookups stay off Mongo, but only
+ * for negative-ttl-ms, so ids that never resolve cannot pile up and a barber created elsewhere
+ * shows up soon. Entries are invalidated by the profile, avatar, registration and admin barber
+ * write paths.
+ */
+@Service
+public class BarberDirectory {
+
+    @Autowired
+    private UserLookupService userLookupService;
+
+    @Value("${barbercut.barbers.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${barbercut.barbers.cache.negative-ttl-ms:60000}")
+    private long negativeTtlMs;
+
+    // Access-ordered, so the eldest entry is the least recently used; guarded by its own monitor
+    private final Map<String, Cached> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /** A cached lookup; entry is null for an unknown barber, which expires at expiresAt. */
+    private static class Cached {
+        final Entry entry;
+        final long expiresAt;
+
+        Cached(Entry entry, long expiresAt) {
+            this.entry = entry;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public static class Entry {
+        public final String barberId;
+        public final String userId;
+        public final String username;
+        public final String displayName;
+        public final String avatarUrl;
+
+        Entry(User u) {
+            this.barberId = u.getBarberId();
+            this.userId = u.getId();
+            this.username = u.getUsername();
+            this.displayName = capitalize(u.getUsername());
+            this.avatarUrl = u.getAvatarUrl();
+        }
+    }
+
+    /** The barber's entry, or null when no user carries this barberId. */
+    public Entry find(String barberId) {
+        if (barberId == null) return null;
+        return findAll(List.of(barberId)).get(barberId);
+    }
+
+    /** Entries keyed by barberId; unknown and null ids are absent from the map. */
+    public Map<String, Entry> findAll(Collection<String> barberIds) {
+        Map<String, Entry> out = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            for (String id : barberIds) {
+                if (id == null) continue;
+                Cached cached = cache.get(id);
+                if (cached == null || cached.expiresAt <= now) missing.add(id);
+                else if (cached.entry != null) out.put(id, cached.entry);
+            }
+        }
+        if (!missing.isEmpty()) {
+            // Loaded outside the lock so a slow query does not stall cached lookups
+            Map<String, User> loaded = userLookupService.findByBarberIds(missing);
+            synchronized (cache) {
+                for (String id : missing) {
+                    User u = loaded.get(id);
+                    if (u != null) {
+                        Entry entry = new Entry(u);
+                        cache.put(id, new Cached(entry, Long.MAX_VALUE));
+                        out.put(id, entry);
+                    } else {
+                        cache.put(id, new Cached(null, now + negativeTtlMs));
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    public void invalidate(String barberId) {
+        if (barberId == null) return;
+        synchronized (cache) {
+            cache.remove(barberId);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private static String capitalize(String s) {
+        if (s == null || s.isEmpty()) return s;
+        return s.substring(0, 1).toUpperCase() + s.substring(1);
+    }
+}
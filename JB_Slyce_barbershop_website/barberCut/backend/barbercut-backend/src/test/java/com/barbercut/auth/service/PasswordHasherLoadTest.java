@@ -0,0 +1,151 @@
+package com.barbercut.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hash cost per work factor, and a login storm against a booking-like workload: logins beyond
+ * the pool's capacity are refused quickly instead of piling up on request threads, and the
+ * other requests' latency stays bounded.
+ */
+class PasswordHasherLoadTest {
+
+    private static final int LOGIN_THREADS = 64;
+    private static final int BOOKING_THREADS = 8;
+    private static final int BOOKINGS = 200;
+
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        if (hasher != null) hasher.stop();
+    }
+
+    private PasswordHasher hasher(int strength, int threads, int queue, long timeoutMs) {
+        hasher = new PasswordHasher();
+        ReflectionTestUtils.setField(hasher, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(hasher, "strength", strength);
+        ReflectionTestUtils.setField(hasher, "threads", threads);
+        ReflectionTestUtils.setField(hasher, "queueCapacity", queue);
+        ReflectionTestUtils.setField(hasher, "timeoutMs", timeoutMs);
+        hasher.start();
+        return hasher;
+    }
+
+    @Test
+    void hashCostByWorkFactor() {
+        for (int strength : new int[]{4, 8, 10}) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+            String hash = encoder.encode("warm-up");
+            int runs = 5;
+            long t0 = System.nanoTime();
+            for (int i = 0; i < runs; i++) encoder.matches("warm-up", hash);
+            System.out.printf("BCrypt cost %d: %.1f ms per verification%n", strength, (System.nanoTime() - t0) / 1e6 / runs);
+        }
+
+        PasswordHasher h = hasher(10, 1, 4, 5_000);
+        String old = new BCryptPasswordEncoder(8).encode("secret");
+        assertTrue(h.matches("secret", old));
+        assertTrue(h.needsRehash(old));
+        assertFalse(h.needsRehash(h.encode("secret")));
+    }
+
+    @Test
+    void loginStormIsRefusedFastAndBookingsKeepGoing() throws Exception {
+        PasswordHasher h = hasher(10, 1, 8, 10_000);
+        String hash = new BCryptPasswordEncoder(10).encode("secret");
+        long[] baseline = bookingLatencies();
+
+        AtomicBoolean storming = new AtomicBoolean(true);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Long> rejections = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService logins = Executors.newFixedThreadPool(LOGIN_THREADS);
+        CountDownLatch started = new CountDownLatch(LOGIN_THREADS);
+        for (int i = 0; i < LOGIN_THREADS; i++) {
+            logins.execute(() -> {
+                started.countDown();
+                while (storming.get()) {
+                    long t0 = System.nanoTime();
+                    try {
+                        h.matches("secret", hash);
+                        accepted.incrementAndGet();
+                    } catch (HashingBusyException e) {
+                        rejections.add(System.nanoTime() - t0);
+                        // A client backing off after a 503
+                        sleep(5);
+                    }
+                }
+            });
+        }
+        long[] storm;
+        try {
+            started.await();
+            storm = bookingLatencies();
+        } finally {
+            storming.set(false);
+            logins.shutdown();
+            logins.awaitTermination(30, TimeUnit.SECONDS);
+        }
+
+        long[] refused = rejections.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("Login storm: %d verified, %d refused (p99 %.2f ms); booking p99 %.2f ms before, %.2f ms during%n",
+                accepted.get(), refused.length, p99(refused) / 1e6, p99(baseline) / 1e6, p99(storm) / 1e6);
+        assertTrue(refused.length > 0, "a saturated pool refuses logins");
+        assertTrue(p99(refused) < TimeUnit.MILLISECONDS.toNanos(100), "refusals are immediate, not queued");
+        assertTrue(p99(storm) < TimeUnit.MILLISECONDS.toNanos(100), "bookings stay responsive during the storm");
+        assertEquals(BOOKING_THREADS * BOOKINGS, storm.length);
+    }
+
+    // A booking is a little CPU work on a request thread, never touching the hashing pool
+    private static long[] bookingLatencies() throws Exception {
+        ExecutorService bookers = Executors.newFixedThreadPool(BOOKING_THREADS);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < BOOKING_THREADS; t++) {
+            bookers.execute(() -> {
+                for (int i = 0; i < BOOKINGS; i++) {
+                    long t0 = System.nanoTime();
+                    long x = 0;
+                    for (int k = 0; k < 20_000; k++) x += Long.hashCode(x * 31 + k);
+                    if (x == 42) System.out.print("");
+                    latencies.add(System.nanoTime() - t0);
+                    sleep(1);
+                }
+            });
+        }
+        bookers.shutdown();
+        assertTrue(bookers.awaitTermination(60, TimeUnit.SECONDS));
+        long[] out = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(out);
+        return out;
+    }
+
+    private static long p99(long[] sorted) {
+        return sorted.length == 0 ? 0 : sorted[(int) (sorted.length * 0.99)];
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
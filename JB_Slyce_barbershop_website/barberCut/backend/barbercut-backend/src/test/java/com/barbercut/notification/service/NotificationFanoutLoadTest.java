@@ -0,0 +1,123 @@
+package com.barbercut.notification.service;
+
+import com.barbercut.notification.model.Notification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 5,000 streams on the default 16 fan-out threads, with more stalled sockets than threads:
+ * every healthy stream still gets every event, and the stalled ones are closed.
+ */
+class NotificationFanoutLoadTest {
+
+    private static final int STREAMS = 5_000;
+    private static final int STALLED = 40;
+    private static final int EVENTS = 20;
+    // hello + every broadcast
+    private static final int FRAMES = 1 + EVENTS;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private NotificationFanout fanout;
+
+    /** Counts frames; every stream's last frame counts down {@code done}. */
+    private static class CountingEmitter extends SseEmitter {
+        final CountDownLatch done;
+        int frames;
+
+        CountingEmitter(CountDownLatch done) {
+            super(0L);
+            this.done = done;
+        }
+
+        @Override
+        public synchronized void send(Set<ResponseBodyEmitter.DataWithMediaType> items) {
+            if (++frames == FRAMES) done.countDown();
+        }
+    }
+
+    /** A socket that stopped reading: the send blocks until the test ends. */
+    private class StalledEmitter extends SseEmitter {
+        StalledEmitter() {
+            super(0L);
+        }
+
+        @Override
+        public synchronized void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+            try {
+                unblock.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Broken pipe");
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        fanout = new NotificationFanout();
+        ReflectionTestUtils.setField(fanout, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(fanout, "meterRegistry", registry);
+        ReflectionTestUtils.setField(fanout, "bufferSize", 256);
+        ReflectionTestUtils.setField(fanout, "threads", 16);
+        ReflectionTestUtils.setField(fanout, "sendTimeoutMs", 200L);
+        fanout.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        unblock.countDown();
+        fanout.stop();
+    }
+
+    @Test
+    void stalledStreamsDoNotStarveHealthyOnes() throws Exception {
+        CountDownLatch done = new CountDownLatch(STREAMS);
+        List<CountingEmitter> healthy = new ArrayList<>();
+        for (int i = 0; i < STALLED; i++) fanout.subscribe(new StalledEmitter(), List.of(), false);
+        for (int i = 0; i < STREAMS; i++) {
+            CountingEmitter e = new CountingEmitter(done);
+            healthy.add(e);
+            fanout.subscribe(e, List.of(), false);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= EVENTS; i++) {
+            Notification n = new Notification("SLOT_CREATED", "Slot " + i, "load test");
+            n.setSeq(i);
+            fanout.broadcast(n);
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS),
+                done.getCount() + " of " + STREAMS + " streams did not receive every event");
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        for (CountingEmitter e : healthy) assertEquals(FRAMES, e.frames);
+        // Stalled streams queued behind the healthy ones are caught once their send starts
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (stalledDisconnects() < STALLED && System.nanoTime() < deadline) Thread.sleep(20);
+        assertEquals(STALLED, stalledDisconnects());
+        assertEquals(STREAMS, registry.get("notifications.subscribers").gauge().value());
+        System.out.printf("Fan-out of %d events to %d streams (%d stalled) took %d ms%n",
+                EVENTS, STREAMS, STALLED, elapsedMs);
+    }
+
+    private double stalledDisconnects() {
+        return registry.counter("notifications.subscribers.stalled_disconnects").count();
+    }
+}
@@ -0,0 +1,83 @@
+package com.barbercut.rating.service;
+
+import com.barbercut.rating.model.Rating;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Search latency on a million synthetic reviews. Words are drawn from a skewed vocabulary, so
+ * common terms have posting lists in the hundreds of thousands, like real feedback.
+ */
+class ReviewSearchIndexLatencyTest {
+
+    private static final int REVIEWS = 1_000_000;
+    private static final int BARBERS = 50;
+    private static final int QUERIES = 2_000;
+    private static final long P99_BUDGET_MS = 20;
+
+    private static final String[] COMMON = {
+            "great", "fade", "cut", "clean", "friendly", "late", "quick", "good", "beard", "line",
+            "rude", "waited", "price", "skin", "taper", "shop", "music", "chair", "booked", "again"};
+
+    private static ReviewSearchIndex index;
+
+    @BeforeAll
+    static void buildIndex() {
+        index = new ReviewSearchIndex();
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < REVIEWS; i++) {
+            text.setLength(0);
+            int words = 6 + random.nextInt(10);
+            for (int w = 0; w < words; w++) {
+                // Squaring skews the draw towards the front: a few very common words, a long tail
+                double r = random.nextDouble();
+                text.append(r < 0.6 ? COMMON[(int) (r * r / 0.36 * COMMON.length)] : "word" + random.nextInt(5_000))
+                        .append(' ');
+            }
+            Rating rating = new Rating("barber-" + (i % BARBERS), "client-" + i, "res-" + i, 5, text.toString());
+            rating.setId(Integer.toString(i));
+            index.index(rating);
+        }
+    }
+
+    @Test
+    void returnsBestMatchesFirst() {
+        List<ReviewSearchIndex.Hit> hits = index.search("rude fade", null, 10);
+        assertEquals(10, hits.size());
+        for (int i = 1; i < hits.size(); i++) assertTrue(hits.get(i - 1).score >= hits.get(i).score);
+        assertFalse(index.search("taper", "barber-7", 20).isEmpty());
+    }
+
+    @Test
+    void p99UnderBudgetOnAMillionReviews() {
+        String[] queries = {"fade", "great fade clean", "late rude", "beard line taper", "word42",
+                "waited price", "friendly quick cut", "word7 skin"};
+        Random random = new Random(7);
+        // Warm up the JIT before measuring
+        for (int i = 0; i < 200; i++) index.search(queries[i % queries.length], null, 20);
+
+        long[] nanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String q = queries[random.nextInt(queries.length)];
+            String barber = random.nextInt(4) == 0 ? "barber-" + random.nextInt(BARBERS) : null;
+            long t0 = System.nanoTime();
+            index.search(q, barber, 20);
+            nanos[i] = System.nanoTime() - t0;
+        }
+        Arrays.sort(nanos);
+        double p50 = nanos[QUERIES / 2] / 1e6;
+        double p99 = nanos[(int) (QUERIES * 0.99)] / 1e6;
+        System.out.printf("Review search over %d reviews: p50 %.2f ms, p99 %.2f ms%n", REVIEWS, p50, p99);
+        assertTrue(p99 < P99_BUDGET_MS, "p99 " + p99 + " ms over " + TimeUnit.MILLISECONDS.toMillis(P99_BUDGET_MS) + " ms");
+    }
+}
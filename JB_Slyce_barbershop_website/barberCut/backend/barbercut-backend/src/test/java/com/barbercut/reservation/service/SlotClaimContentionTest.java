@@ -0,0 +1,103 @@
+package com.barbercut.reservation.service;
+
+import com.barbercut.reservation.model.Slot;
+import com.barbercut.reservation.service.SlotClaimService.ClaimResult;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 128 concurrent bookers race for the same slot, round after round: exactly one claim wins each
+ * round, every loser gets TAKEN without an exception, and the throughput is reported.
+ *
+ * The claim is a pipeline-update findAndModify, which needs a real server: set
+ * BARBERCUT_TEST_MONGO_URI (e.g. mongodb://localhost:27017) to run it. It works in a throwaway
+ * database that is dropped afterwards.
+ */
+@EnabledIfEnvironmentVariable(named = "BARBERCUT_TEST_MONGO_URI", matches = ".+")
+class SlotClaimContentionTest {
+
+    private static final int BOOKERS = 128;
+    private static final int ROUNDS = 20;
+    private static final String BARBER = "barber-1";
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private SlotClaimService claims;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(System.getenv("BARBERCUT_TEST_MONGO_URI"));
+        mongoTemplate = new MongoTemplate(client, "barbercut_contention_test");
+        mongoTemplate.getDb().drop();
+        claims = new SlotClaimService();
+        ReflectionTestUtils.setField(claims, "mongoTemplate", mongoTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void oneWinnerPerSlotUnderContention() throws Exception {
+        Instant base = Instant.now().truncatedTo(ChronoUnit.HOURS).plus(1, ChronoUnit.DAYS);
+        ExecutorService bookers = Executors.newFixedThreadPool(BOOKERS);
+        long claimsMade = 0;
+        long elapsed = 0;
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                Instant start = base.plus(round, ChronoUnit.HOURS);
+                mongoTemplate.insert(new Slot(BARBER, start, start.plus(1, ChronoUnit.HOURS)));
+
+                CountDownLatch go = new CountDownLatch(1);
+                List<Future<ClaimResult>> results = new ArrayList<>();
+                for (int i = 0; i < BOOKERS; i++) {
+                    String reservationId = "r-" + round + "-" + i;
+                    results.add(bookers.submit(() -> {
+                        go.await();
+                        return claims.claim(BARBER, start, reservationId);
+                    }));
+                }
+                long t0 = System.nanoTime();
+                go.countDown();
+                Map<ClaimResult, Integer> outcomes = new EnumMap<>(ClaimResult.class);
+                for (Future<ClaimResult> f : results) outcomes.merge(f.get(30, TimeUnit.SECONDS), 1, Integer::sum);
+                elapsed += System.nanoTime() - t0;
+                claimsMade += BOOKERS;
+
+                assertEquals(1, outcomes.getOrDefault(ClaimResult.CLAIMED, 0));
+                assertEquals(BOOKERS - 1, outcomes.getOrDefault(ClaimResult.TAKEN, 0));
+                Slot slot = mongoTemplate.findOne(Query.query(Criteria.where("start").is(start)), Slot.class);
+                assertEquals(1, slot.getVersion());
+            }
+        } finally {
+            bookers.shutdownNow();
+        }
+        double seconds = elapsed / 1e9;
+        System.out.printf("%d bookers x %d rounds on one slot each: %.0f claims/s (%.2f ms per round)%n",
+                BOOKERS, ROUNDS, claimsMade / seconds, elapsed / 1e6 / ROUNDS);
+    }
+}
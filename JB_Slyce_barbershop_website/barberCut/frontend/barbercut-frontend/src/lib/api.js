@@ -3,8 +3,43 @@ export const API_BASE = ENV_API || ((typeof window !== 'undefined' && window.loc
   ? `${window.location.protocol}//${window.location.hostname}:8080`
   : 'http://localhost:8080');
 
+// Bearer header for the signed-in user's session token; omitted once it has expired so the request stays anonymous
+export function authHeaders() {
+  try {
+    const current = JSON.parse(localStorage.getItem('bc_current_user'));
+    if (!current || !current.token) return {};
+    if (current.tokenExpiresAt && Date.parse(current.tokenExpiresAt) <= Date.now()) return {};
+    return { Authorization: `Bearer ${current.token}` };
+  } catch {
+    return {};
+  }
+}
+
+// Forget a session token the server rejected (e.g. signed before a restart) so later requests go without it
+function dropToken() {
+  try {
+    const current = JSON.parse(localStorage.getItem('bc_current_user'));
+    if (current && current.token) {
+      delete current.token;
+      delete current.tokenExpiresAt;
+      localStorage.setItem('bc_current_user', JSON.stringify(current));
+    }
+  } catch {}
+}
+
+// fetch with the session token; on 401 the token is dropped and the request retried once without it
+async function fetchWithAuth(url, options = {}) {
+  const auth = authHeaders();
+  const res = await fetch(url, { ...options, headers: { ...(options.headers || {}), ...auth } });
+  if (res.status === 401 && auth.Authorization) {
+    dropToken();
+    return fetch(url, options);
+  }
+  return res;
+}
+
 export async function createReservation({ barberId, clientId, slotISO, notes = '', serviceName, serviceDurationMinutes }) {
-  const res = await fetch(`${API_BASE}/api/reservations`, {
+  const res = await fetchWithAuth(`${API_BASE}/api/reservations`, {
     method: 'POST',
     headers: { 'Content-Type': 'application/json' },
     body: JSON.stringify({ barberId, clientId, slot: slotISO, notes, serviceName, serviceDurationMinutes })
@@ -185,7 +220,7 @@ export async function getBarberAverageRating(barberId) {
 }
 
 export async function createRating({ barberId, clientId, reservationId, rating, feedback }) {
-  const res = await fetch(`${API_BASE}/api/ratings`, {
+  const res = await fetchWithAuth(`${API_BASE}/api/ratings`, {
     method: 'POST',
     headers: { 'Content-Type': 'application/json' },
     body: JSON.stringify({ barberId, clientId, reservationId, rating, feedback })
@@ -1,5 +1,6 @@
-import React from 'react';
+import React, { useEffect, useState } from 'react';
 import { NavLink, Outlet } from 'react-router-dom';
+import { API_BASE } from '../../lib/api';
 
 export default function AdminLayout() {
   const linkStyle = ({ isActive }) => ({
@@ -16,6 +17,23 @@ export default function AdminLayout() {
     justifyContent: 'flex-start'
   });
 
+  // Unread badge: the server keeps the count, so no list download is needed
+  const [unread, setUnread] = useState(0);
+  useEffect(() => {
+    let cancelled = false;
+    const load = async () => {
+      try {
+        const res = await fetch(`${API_BASE}/api/admin/notifications/unread-count`);
+        if (!res.ok) return;
+        const data = await res.json();
+        if (!cancelled) setUnread(Number(data.count) || 0);
+      } catch {}
+    };
+    load();
+    const timer = setInterval(load, 30000);
+    return () => { cancelled = true; clearInterval(timer); };
+  }, []);
+
   return (
     <div className="home">
       <div className="bc-container">
@@ -28,7 +46,14 @@ export default function AdminLayout() {
                 <NavLink to="/admin/barbers" style={linkStyle}>💈 Barbers</NavLink>
                 <NavLink to="/admin/clients" style={linkStyle}>👤 Clients</NavLink>
                 <NavLink to="/admin/reservations" style={linkStyle}>📋 Reservations</NavLink>
-                <NavLink to="/admin/notifications" style={linkStyle}>🔔 Notifications</NavLink>
+                <NavLink to="/admin/notifications" style={linkStyle}>
+                  🔔 Notifications
+                  {unread > 0 && (
+                    <span style={{ marginLeft: 'auto', background: '#dc2626', color: '#fff', borderRadius: 999, padding: '0 8px', fontSize: 12, fontWeight: 700 }}>
+                      {unread > 99 ? '99+' : unread}
+                    </span>
+                  )}
+                </NavLink>
                 <NavLink to="/admin/settings" style={linkStyle}>⚙️ Settings</NavLink>
               </nav>
             </aside>
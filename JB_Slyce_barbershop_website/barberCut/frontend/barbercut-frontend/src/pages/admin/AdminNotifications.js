@@ -1,6 +1,8 @@
 import React, { useEffect, useMemo, useState } from 'react';
 import { API_BASE } from '../../lib/api';
 
+const PAGE_SIZE = 50;
+
 export default function AdminNotifications() {
   const seed = useMemo(() => {
     const now = Date.now();
@@ -18,6 +20,8 @@ export default function AdminNotifications() {
   }, []);
 
   const [notes, setNotes] = useState([]);
+  const [hasMore, setHasMore] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [q, setQ] = useState('');
   const [tab, setTab] = useState('ALL');
   const [sortBy, setSortBy] = useState('NEWEST');
@@ -73,17 +77,29 @@ export default function AdminNotifications() {
     body: n.body,
     at: n.createdAt || new Date().toISOString(),
     read: !!n.read,
+    seq: n.seq,
   });
 
+  // Newest-first page from the server; beforeSeq continues below the oldest one already shown
+  const fetchPage = async (beforeSeq) => {
+    const params = new URLSearchParams({ limit: String(PAGE_SIZE) });
+    if (beforeSeq != null) params.set('beforeSeq', String(beforeSeq));
+    const res = await fetch(`${API_BASE}/api/admin/notifications?${params}`);
+    if (!res.ok) throw new Error('Failed to load notifications');
+    const data = await res.json();
+    return Array.isArray(data) ? data.map(mapServer) : [];
+  };
+
   // Initial load
   useEffect(() => {
     let cancelled = false;
     const load = async () => {
       try {
-        const res = await fetch(`${API_BASE}/api/admin/notifications`);
-        if (!res.ok) throw new Error('Failed to load notifications');
-        const data = await res.json();
-        if (!cancelled) setNotes(Array.isArray(data) ? data.map(mapServer) : []);
+        const page = await fetchPage(null);
+        if (!cancelled) {
+          setNotes(page);
+          setHasMore(page.length === PAGE_SIZE);
+        }
       } catch (e) {
         // Fallback to seed if backend not ready
         if (!cancelled) setNotes(seed);
@@ -106,12 +122,38 @@ export default function AdminNotifications() {
         });
       } catch {}
     };
+    // Sent when the notifications missed while disconnected can no longer be replayed
+    const onReset = async () => {
+      try {
+        const page = await fetchPage(null);
+        setNotes(page);
+        setHasMore(page.length === PAGE_SIZE);
+      } catch {}
+    };
     es.addEventListener('notification', onMsg);
+    es.addEventListener('reset', onReset);
     es.onmessage = onMsg; // fallback
     es.onerror = () => { /* keep connection, browser will retry */ };
     return () => { es.close(); };
   }, []);
 
+  const loadMore = async () => {
+    // Notifications from before sequence numbers were backfilled with negative ones, so any number pages
+    const seqs = notes.map(n => n.seq).filter(s => typeof s === 'number');
+    if (seqs.length === 0) return;
+    setLoadingMore(true);
+    try {
+      const page = await fetchPage(Math.min(...seqs));
+      setNotes(prev => {
+        const seen = new Set(prev.map(n => n.id));
+        return [...prev, ...page.filter(n => !seen.has(n.id))];
+      });
+      setHasMore(page.length === PAGE_SIZE);
+    } catch {} finally {
+      setLoadingMore(false);
+    }
+  };
+
   const markAll = async () => {
     try { await fetch(`${API_BASE}/api/admin/notifications/mark-read`, { method:'PUT' }); } catch {}
     setNotes(prev => prev.map(n => ({ ...n, read:true })));
@@ -183,6 +225,11 @@ export default function AdminNotifications() {
           {list.length === 0 && (
             <div style={{ padding:18, textAlign:'center' }} className="muted">No notifications.</div>
           )}
+          {hasMore && (
+            <div style={{ padding:12, textAlign:'center' }}>
+              <button className="btn sm" onClick={loadMore} disabled={loadingMore}>{loadingMore ? 'Loading…' : 'Load older'}</button>
+            </div>
+          )}
         </div>
       </div>
     </div>
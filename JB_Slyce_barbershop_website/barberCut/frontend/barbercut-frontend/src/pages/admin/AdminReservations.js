@@ -10,6 +10,8 @@ const STATUS_MAP = {
   'CANCELLED': 'Cancelled'
 };
 
+const PAGE_SIZE = 50;
+
 export default function AdminReservations() {
   const [reservations, setReservations] = useState([]);
   const [loading, setLoading] = useState(true);
@@ -18,12 +20,13 @@ export default function AdminReservations() {
   const [dateFrom, setDateFrom] = useState('');
   const [dateTo, setDateTo] = useState('');
   const [hovered, setHovered] = useState(null);
+  const [page, setPage] = useState(0);
 
   const loadReservations = async () => {
     try {
       setLoading(true);
       setError('');
-      let url = `${API_BASE}/api/admin/reservations?sortBy=date`;
+      let url = `${API_BASE}/api/admin/reservations?sortBy=date&page=${page}&size=${PAGE_SIZE}`;
       if (statusFilter !== 'All') {
         url += `&status=${statusFilter}`;
       }
@@ -44,7 +47,8 @@ export default function AdminReservations() {
     }
   };
 
-  useEffect(() => { loadReservations(); }, [statusFilter, dateFrom, dateTo]);
+  useEffect(() => { setPage(0); }, [statusFilter, dateFrom, dateTo]);
+  useEffect(() => { loadReservations(); }, [statusFilter, dateFrom, dateTo, page]);
 
   const handleCancel = async (id) => {
     if (!window.confirm('Cancel this reservation?')) return;
@@ -161,6 +165,11 @@ export default function AdminReservations() {
               </table>
             </div>
           </div>
+          <div style={{ display:'flex', gap:8, marginTop:12, justifyContent:'flex-end', alignItems:'center' }}>
+            <button className="btn sm" disabled={page === 0} onClick={() => setPage(p => Math.max(0, p - 1))}>Previous</button>
+            <span className="muted" style={{ fontSize:14 }}>Page {page + 1}</span>
+            <button className="btn sm" disabled={reservations.length < PAGE_SIZE} onClick={() => setPage(p => p + 1)}>Next</button>
+          </div>
         </>
       )}
     </div>